@@ -0,0 +1,29 @@
+package ru.practicum.shareit;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.retry.annotation.RetryConfiguration;
+
+/**
+ * Повтор при конфликте версий (@Retryable) должен оборачивать транзакцию, чтобы каждая попытка шла в новой
+ * транзакции и перечитывала данные. У советника spring-retry и у транзакционного советника по умолчанию
+ * одинаковый порядок LOWEST_PRECEDENCE, и снаружи оказывается тот, кто раньше зарегистрирован, поэтому
+ * порядок повтора задается явно. Задается он в определении бина: сам советник может быть создан раньше,
+ * чем обычные BeanPostProcessor.
+ */
+@Configuration
+public class RetryConfig {
+
+    public static final int RETRY_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+    @Bean
+    static BeanFactoryPostProcessor retryAdvisorOrder() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanNamesForType(RetryConfiguration.class, true, false)) {
+                beanFactory.getBeanDefinition(name).getPropertyValues().add("order", RETRY_ORDER);
+            }
+        };
+    }
+}
@@ -1,16 +1,19 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.pagination.PageCursor;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
 import java.util.List;
 
 @RestController
@@ -27,6 +30,12 @@ public class BookingController {
         return bookingService.addBooking(bookingRequestDto, userId);
     }
 
+    @PostMapping("/bulk")
+    public List<BookingResponseDto> addBookings(@RequestBody @Size(max = 5000) List<@Valid BookingRequestDto> bookingRequestDtos,
+                                                @RequestHeader("X-Sharer-User-Id") Long userId) {
+        return bookingService.addBookings(bookingRequestDtos, userId);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingResponseDto approveBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
                                              @PathVariable("bookingId") long bookingId,
@@ -41,18 +50,30 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingResponseDto> getBookingsByUser(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                      @RequestParam(defaultValue = "ALL") State state,
-                                                      @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                      @RequestParam(defaultValue = "10") @Positive int size) {
-        return bookingService.getAllBookingByUserId(userId, state, from, size);
+    public ResponseEntity<List<BookingResponseDto>> getBookingsByUser(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                      @RequestParam(defaultValue = "ALL") State state,
+                                                                      @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                                      @RequestParam(defaultValue = "10") @Positive int size,
+                                                                      @RequestParam(required = false) String cursor) {
+        List<BookingResponseDto> bookings = cursor == null
+                ? bookingService.getAllBookingByUserId(userId, state, from, size)
+                : bookingService.getBookingsByUserAfter(userId, state, PageCursor.decode(cursor), size);
+        return PageCursor.withNextCursor(bookings, size, BookingController::toCursor);
     }
 
     @GetMapping("/owner")
-    public List<BookingResponseDto> getBookingsByOwner(@RequestHeader("X-Sharer-User-Id") Long ownerId,
-                                                       @RequestParam(defaultValue = "ALL") State state,
-                                                       @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                       @RequestParam(defaultValue = "10") @Positive int size) {
-        return bookingService.getAllBookingsByOwner(ownerId, state, from, size);
+    public ResponseEntity<List<BookingResponseDto>> getBookingsByOwner(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                                       @RequestParam(defaultValue = "ALL") State state,
+                                                                       @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                                       @RequestParam(defaultValue = "10") @Positive int size,
+                                                                       @RequestParam(required = false) String cursor) {
+        List<BookingResponseDto> bookings = cursor == null
+                ? bookingService.getAllBookingsByOwner(ownerId, state, from, size)
+                : bookingService.getBookingsByOwnerAfter(ownerId, state, PageCursor.decode(cursor), size);
+        return PageCursor.withNextCursor(bookings, size, BookingController::toCursor);
+    }
+
+    private static PageCursor toCursor(BookingResponseDto booking) {
+        return new PageCursor(booking.getStart(), booking.getId());
     }
 }
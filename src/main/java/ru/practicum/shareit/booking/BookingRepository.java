@@ -1,48 +1,57 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-
-    List<Booking> findByBookerId(Long bookerId, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfter(Long bookerId, LocalDateTime start, LocalDateTime end,
-                                                              Pageable pageable);
-
-    List<Booking> findByBookerIdAndEndIsBefore(Long bookerId, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartIsAfter(Long bookerId, LocalDateTime start, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStatus(Long bookerId, Status status, Pageable pageable);
-
-    List<Booking> findByItemOwnerId(Long ownerId, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStartIsBeforeAndEndIsAfter(Long ownerId, LocalDateTime start, LocalDateTime end,
-                                                                 Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndEndIsBefore(Long ownerId, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStartIsAfter(Long ownerId, LocalDateTime start, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStatus(Long ownerId, Status status, Pageable pageable);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingSearchRepository {
 
+    // производные запросы по item.id и booker.id соединяют таблицы через left join и читают BOOKINGS целиком,
+    // в JPQL условие на id связи проверяется по внешнему ключу
+    @Query("select b from Booking b where b.booker.id = ?1 and b.item.id = ?2 and b.status = ?3 and b.end < ?4")
     List<Booking> findByBookerIdAndItemIdAndStatusEqualsAndEndIsBefore(Long bookerId, Long itemId, Status status, LocalDateTime end);
 
-    List<Booking> findByItemId(Long itemId, Sort sort);
-
-    List<Booking> findByItemIdIn(List<Long> itemsIds, Sort sort);
+    @Query("select b from Booking b where b.item.id = ?1 and b.status = ?2")
+    List<Booking> findByItemIdAndStatus(Long itemId, Status status);
+
+    @Query("select b from Booking b where b.item.id in ?1 and b.status = ?2")
+    List<Booking> findByItemIdInAndStatus(Collection<Long> itemIds, Status status);
+
+    @Query("select count(b) from Booking b " +
+            "where b.item.id = ?1 and b.status = ?2 and b.start < ?4 and b.end > ?3 and b.id <> ?5")
+    long countOverlapping(Long itemId, Status status, LocalDateTime start, LocalDateTime end, Long exceptId);
+
+    @Query(value = "select l.id, l.start_date, l.end_date, l.item_id, l.booker_id, l.status, l.version from (" +
+            "select b.*, row_number() over (partition by b.item_id order by b.start_date desc, b.id desc) as rn " +
+            "from bookings b " +
+            "where b.item_id in (:itemIds) and b.status = 'APPROVED' and b.start_date < :date) l " +
+            "where l.rn = 1 " +
+            "union all " +
+            "select n.id, n.start_date, n.end_date, n.item_id, n.booker_id, n.status, n.version from (" +
+            "select b.*, row_number() over (partition by b.item_id order by b.start_date, b.id) as rn " +
+            "from bookings b " +
+            "where b.item_id in (:itemIds) and b.status = 'APPROVED' and b.start_date > :date) n " +
+            "where n.rn = 1", nativeQuery = true)
+    List<Booking> findLastAndNextApprovedByItemIdIn(List<Long> itemIds, LocalDateTime date);
 
     @Query("select b from Booking b " +
             "inner join Item i on b.item.id = i.id " +
             "where i.owner.id = :ownerId " +
             "and b.id = :bookingId ")
     Booking findByIdAndOwnerId(Long bookingId, Long ownerId);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("select new ru.practicum.shareit.booking.dto.BookingResponseDto(b.id, b.start, b.end, i.id, i.name, " +
+            "b.booker.id, b.status) from Booking b join b.item i order by b.id")
+    Stream<BookingResponseDto> streamAll();
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+
+public interface BookingSearchRepository {
+
+    /**
+     * Страница бронирований сразу в виде ответа: выбираются только нужные ответу колонки,
+     * одним запросом с соединением бронирований и вещей.
+     */
+    List<BookingResponseDto> findPage(Specification<Booking> spec, Sort sort, int offset, int limit);
+}
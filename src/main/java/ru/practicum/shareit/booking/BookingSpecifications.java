@@ -0,0 +1,64 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.exception.BadRequestStateException;
+import ru.practicum.shareit.pagination.PageCursor;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BookingSpecifications {
+
+    private static final Sort START_DESC = Sort.by(Sort.Direction.DESC, "start", "id");
+
+    private static final Sort ID_ASC = Sort.by("id").ascending();
+
+    public static Specification<Booking> byBooker(long bookerId) {
+        return (root, query, cb) -> cb.equal(root.get("booker").get("id"), bookerId);
+    }
+
+    public static Specification<Booking> byItemOwner(long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("item").get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Booking> inState(State state, LocalDateTime now) {
+        switch (state) {
+            case ALL:
+                return (root, query, cb) -> cb.conjunction();
+            case PAST:
+                return (root, query, cb) -> cb.lessThan(root.<LocalDateTime>get("end"), now);
+            case CURRENT:
+                return (root, query, cb) -> cb.and(cb.lessThan(root.<LocalDateTime>get("start"), now),
+                        cb.greaterThan(root.<LocalDateTime>get("end"), now));
+            case FUTURE:
+                return (root, query, cb) -> cb.greaterThan(root.<LocalDateTime>get("start"), now);
+            case WAITING:
+                return (root, query, cb) -> cb.equal(root.get("status"), Status.WAITING);
+            case REJECTED:
+                return (root, query, cb) -> cb.equal(root.get("status"), Status.REJECTED);
+            default:
+                throw new BadRequestStateException(state.name());
+        }
+    }
+
+    // курсор указывает на последнюю запись предыдущей страницы, порядок тот же, что в sortFor
+    public static Specification<Booking> after(State state, PageCursor cursor) {
+        if (state == State.CURRENT) {
+            return (root, query, cb) -> cb.greaterThan(root.<Long>get("id"), cursor.getId());
+        }
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.<LocalDateTime>get("start"), cursor.getTimestamp()),
+                cb.and(cb.equal(root.get("start"), cursor.getTimestamp()),
+                        cb.lessThan(root.<Long>get("id"), cursor.getId())));
+    }
+
+    public static Sort sortFor(State state) {
+        return state == State.CURRENT ? ID_ASC : START_DESC;
+    }
+}
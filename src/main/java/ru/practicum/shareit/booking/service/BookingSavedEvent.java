@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Бронирование создано или изменило статус. Изменение касается и арендатора, и владельца вещи.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BookingSavedEvent {
+    private final long bookingId;
+    private final long bookerId;
+    private final long ownerId;
+}
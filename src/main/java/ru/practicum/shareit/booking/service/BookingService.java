@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.service;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.pagination.PageCursor;
 
 import java.util.List;
 
@@ -10,6 +11,8 @@ public interface BookingService {
 
     BookingResponseDto addBooking(BookingRequestDto bookingRequestDto, long userId);
 
+    List<BookingResponseDto> addBookings(List<BookingRequestDto> bookingRequestDtos, long userId);
+
     BookingResponseDto approveBooking(long userId, long bookingId, boolean approved);
 
     BookingResponseDto getBookingById(long userId, long bookingId);
@@ -17,4 +20,8 @@ public interface BookingService {
     List<BookingResponseDto> getAllBookingByUserId(long userId, State state, int from, int size);
 
     List<BookingResponseDto> getAllBookingsByOwner(long ownerId, State state, int from, int size);
+
+    List<BookingResponseDto> getBookingsByUserAfter(long userId, State state, PageCursor cursor, int size);
+
+    List<BookingResponseDto> getBookingsByOwnerAfter(long ownerId, State state, PageCursor cursor, int size);
 }
@@ -2,30 +2,34 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingSpecifications;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
-import ru.practicum.shareit.exception.BadRequestStateException;
 import ru.practicum.shareit.exception.NotFoundException;
 
 import ru.practicum.shareit.exception.ValidateException;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,7 +41,8 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
-    private final Sort sort = Sort.by(Sort.Direction.DESC, "start");
+    private final BookingTimeline bookingTimeline;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public BookingResponseDto addBooking(BookingRequestDto bookingRequestDto, long userId) {
@@ -47,7 +52,48 @@ public class BookingServiceImpl implements BookingService {
         Item item = itemRepository.findById(bookingRequestDto.getItemId())
                 .orElseThrow(() -> new NotFoundException("Не найден предмет с id " + bookingRequestDto.getItemId()));
 
-        if (Objects.equals(item.getOwner().getId(), userId)) {
+        Booking booking = bookingRepository.save(createBooking(bookingRequestDto, item, user));
+        publishSaved(booking);
+        return BookingMapper.toBookingResponseDto(booking);
+    }
+
+    @Override
+    public List<BookingResponseDto> addBookings(List<BookingRequestDto> bookingRequestDtos, long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id " + userId));
+
+        Map<Long, Item> items = itemRepository.findAllById(bookingRequestDtos.stream()
+                        .map(BookingRequestDto::getItemId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        // таймлайны всех вещей пачки одним запросом, а не по запросу на каждую вещь в createBooking
+        bookingTimeline.preload(items.keySet());
+
+        List<Booking> bookings = new ArrayList<>(bookingRequestDtos.size());
+        for (BookingRequestDto bookingRequestDto : bookingRequestDtos) {
+            Item item = items.get(bookingRequestDto.getItemId());
+            if (item == null) {
+                throw new NotFoundException("Не найден предмет с id " + bookingRequestDto.getItemId());
+            }
+            bookings.add(createBooking(bookingRequestDto, item, user));
+        }
+
+        // новые бронирования уходят в базу пачками по hibernate.jdbc.batch_size
+        List<Booking> savedBookings = bookingRepository.saveAll(bookings);
+        savedBookings.forEach(this::publishSaved);
+        return savedBookings.stream()
+                .map(BookingMapper::toBookingResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    private void publishSaved(Booking booking) {
+        eventPublisher.publishEvent(new BookingSavedEvent(booking.getId(), booking.getBooker().getId(),
+                booking.getItem().getOwner().getId()));
+    }
+
+    private Booking createBooking(BookingRequestDto bookingRequestDto, Item item, User user) {
+        if (Objects.equals(item.getOwner().getId(), user.getId())) {
             throw new NotFoundException("Владелец вещи не может забронировать свою же вещь");
         }
 
@@ -60,9 +106,11 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidateException("Вещь не доступна для бронирования");
         }
 
-        Booking booking = BookingMapper.toBooking(bookingRequestDto, item, user);
-        booking = bookingRepository.save(booking);
-        return BookingMapper.toBookingResponseDto(booking);
+        if (!bookingTimeline.isFree(item.getId(), bookingRequestDto.getStart(), bookingRequestDto.getEnd())) {
+            throw new ValidateException("Вещь уже забронирована на это время");
+        }
+
+        return BookingMapper.toBooking(bookingRequestDto, item, user);
     }
 
     @Override
@@ -93,18 +141,35 @@ public class BookingServiceImpl implements BookingService {
         }
 
         booking.setStatus(status);
+        bookingTimeline.reserve(booking);
+        if (status == Status.APPROVED) {
+            checkNotApprovedInDatabase(booking);
+        }
         booking = bookingRepository.save(booking);
-
+        publishSaved(booking);
 
         return BookingMapper.toBookingResponseDto(booking);
     }
 
+    /**
+     * Таймлайн в памяти видит только подтверждения своего экземпляра приложения. Под блокировкой строки вещи
+     * подтверждения одной вещи идут по очереди, и каждое видит уже закоммиченные предыдущие.
+     */
+    private void checkNotApprovedInDatabase(Booking booking) {
+        long itemId = booking.getItem().getId();
+        itemRepository.lockById(itemId);
+        // запрос сбрасывает в базу и статус самого бронирования, поэтому оно исключается
+        if (bookingRepository.countOverlapping(itemId, Status.APPROVED, booking.getStart(), booking.getEnd(),
+                booking.getId()) > 0) {
+            throw new ValidateException("Вещь с id " + itemId + " уже забронирована на это время");
+        }
+    }
+
     @Transactional(readOnly = true)
     @Override
     public BookingResponseDto getBookingById(long userId, long bookingId) {
 
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Не найден пользователь с id " + userId));
+        checkUserExists(userId);
 
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Не найдено бронирование с id " + bookingId));
@@ -120,81 +185,52 @@ public class BookingServiceImpl implements BookingService {
     @Transactional(readOnly = true)
     @Override
     public List<BookingResponseDto> getAllBookingByUserId(long userId, State state, int from, int size) {
+        checkUserExists(userId);
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id" + userId));
-
-        List<Booking> bookings;
-        LocalDateTime time = LocalDateTime.now();
-
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findByBookerId(userId, PageRequest.of(from / size, size, sort));
-                break;
-            case PAST:
-                bookings = bookingRepository.findByBookerIdAndEndIsBefore(userId, time,
-                        PageRequest.of(from, size, sort));
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfter(userId, time, time,
-                        PageRequest.of(from, size, Sort.by("id").ascending()));
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findByBookerIdAndStartIsAfter(userId, time,
-                        PageRequest.of(from, size, sort));
-                break;
-            case WAITING:
-                bookings = bookingRepository.findByBookerIdAndStatus(userId, Status.WAITING,
-                        PageRequest.of(from, size, sort));
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findByBookerIdAndStatus(userId, Status.REJECTED,
-                        PageRequest.of(from, size, sort));
-                break;
-            default:
-                throw new BadRequestStateException(state.name());
-        }
-        return bookings.stream().map(BookingMapper::toBookingResponseDto).collect(Collectors.toList());
+        return findBookings(BookingSpecifications.byBooker(userId), state, null, from / size * size, size);
     }
 
     @Transactional(readOnly = true)
     @Override
     public List<BookingResponseDto> getAllBookingsByOwner(long ownerId, State state, int from, int size) {
-        User owner = userRepository.findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователь с id" + ownerId));
-
-        List<Booking> bookings;
-        LocalDateTime time = LocalDateTime.now();
-
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findByItemOwnerId(ownerId, PageRequest.of(from, size, sort));
-                break;
-            case PAST:
-                bookings = bookingRepository.findByItemOwnerIdAndEndIsBefore(ownerId, time,
-                        PageRequest.of(from, size, sort));
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfter(ownerId, time, time,
-                        PageRequest.of(from, size, Sort.by("id").ascending()));
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findByItemOwnerIdAndStartIsAfter(ownerId, time,
-                        PageRequest.of(from, size, sort));
-                break;
-            case WAITING:
-                bookings = bookingRepository.findByItemOwnerIdAndStatus(ownerId, Status.WAITING,
-                        PageRequest.of(from, size, sort));
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findByItemOwnerIdAndStatus(ownerId, Status.REJECTED,
-                        PageRequest.of(from, size, sort));
-                break;
-            default:
-                throw new BadRequestStateException(state.name());
-        }
-        return bookings.stream().map(BookingMapper::toBookingResponseDto).collect(Collectors.toList());
+        checkUserExists(ownerId);
+
+        return findBookings(BookingSpecifications.byItemOwner(ownerId), state, null, from / size * size, size);
     }
-}
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingResponseDto> getBookingsByUserAfter(long userId, State state, PageCursor cursor, int size) {
+        checkUserExists(userId);
 
+        return findBookings(BookingSpecifications.byBooker(userId), state, cursor, 0, size);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingResponseDto> getBookingsByOwnerAfter(long ownerId, State state, PageCursor cursor, int size) {
+        checkUserExists(ownerId);
+
+        return findBookings(BookingSpecifications.byItemOwner(ownerId), state, cursor, 0, size);
+    }
+
+    private void checkUserExists(long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Не найден пользователь с id " + userId);
+        }
+    }
+
+    /**
+     * Все выборки списков бронирований: роль пользователя, состояние и курсор складываются в одну спецификацию,
+     * поэтому на каждую пару роль-состояние приходится один и тот же запрос с разными параметрами.
+     */
+    private List<BookingResponseDto> findBookings(Specification<Booking> byUser, State state, PageCursor cursor,
+                                                  int offset, int size) {
+        Specification<Booking> spec = Specification.where(byUser)
+                .and(BookingSpecifications.inState(state, LocalDateTime.now()));
+        if (cursor != null) {
+            spec = spec.and(BookingSpecifications.after(state, cursor));
+        }
+        return bookingRepository.findPage(spec, BookingSpecifications.sortFor(state), offset, size);
+    }
+}
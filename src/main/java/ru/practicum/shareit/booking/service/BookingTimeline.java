@@ -0,0 +1,296 @@
+package ru.practicum.shareit.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.exception.ValidateException;
+import ru.practicum.shareit.user.service.UserDeletedEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Подтверждённые бронирования каждой вещи, упорядоченные по времени начала.
+ * Таймлайн вещи загружается из базы при первом обращении, дальше поддерживается в памяти. Хранятся таймлайны
+ * не больше чем {@value #MAX_ITEMS} вещей, давно не запрашиваемые вытесняются и при следующем обращении
+ * загружаются заново.
+ * Подтверждённые интервалы одной вещи не пересекаются, поэтому для проверки нового интервала
+ * достаточно соседей по времени начала. Проверка и резервирование идут под блокировкой вещи
+ * из фиксированного набора, бронирования разных вещей друг друга почти не ждут.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingTimeline {
+
+    private static final int STRIPES = 64;
+
+    private static final long MAX_ITEMS = 100_000;
+
+    private static final Comparator<BookingItemDto> BY_START = Comparator.comparing(BookingItemDto::getStart)
+            .thenComparingLong(BookingItemDto::getId);
+
+    private final BookingRepository bookingRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final Cache<Long, NavigableSet<BookingItemDto>> timelines = Caffeine.newBuilder()
+            .maximumSize(MAX_ITEMS)
+            .build();
+
+    /**
+     * Подтверждения, чьи транзакции еще не завершились. Их учитывает только проверка пересечений,
+     * в таймлайн и в ответы findLast/findNext они попадают после коммита.
+     */
+    private final Map<Long, NavigableSet<BookingItemDto>> pending = new ConcurrentHashMap<>();
+
+    private final Lock[] locks = createLocks();
+
+    // изменения таймлайнов после коммитов и удалений: по нему preload узнает, не устарело ли прочитанное
+    private final AtomicLong changes = new AtomicLong();
+
+    public BookingItemDto findLast(long itemId, LocalDateTime date) {
+        return getTimeline(itemId).lower(probe(date, Long.MIN_VALUE));
+    }
+
+    public BookingItemDto findNext(long itemId, LocalDateTime date) {
+        return getTimeline(itemId).higher(probe(date, Long.MAX_VALUE));
+    }
+
+    public boolean isFree(long itemId, LocalDateTime start, LocalDateTime end) {
+        return !overlaps(itemId, getTimeline(itemId), start, end, null);
+    }
+
+    /**
+     * Загружает одним запросом таймлайны вещей, которых еще нет в памяти, например перед созданием пачки
+     * бронирований. Прочитанный таймлайн остается в памяти, только если за время чтения не было ни одного
+     * коммита подтверждения или удаления пользователя: иначе он мог их пропустить, и вещь загрузится
+     * отдельно при первом обращении. Изменение после коммита идет под блокировкой вещи, поэтому проверка
+     * под той же блокировкой сразу после вставки его не пропустит.
+     */
+    public void preload(Collection<Long> itemIds) {
+        Set<Long> missing = itemIds.stream()
+                .filter(itemId -> timelines.getIfPresent(itemId) == null)
+                .collect(Collectors.toSet());
+        if (missing.isEmpty()) {
+            return;
+        }
+        long seen = changes.get();
+        Map<Long, NavigableSet<BookingItemDto>> loaded = loadApproved(missing);
+        for (Map.Entry<Long, NavigableSet<BookingItemDto>> timeline : loaded.entrySet()) {
+            Lock lock = lockFor(timeline.getKey());
+            lock.lock();
+            try {
+                boolean added = timelines.asMap().putIfAbsent(timeline.getKey(), timeline.getValue()) == null;
+                if (changes.get() != seen) {
+                    if (added) {
+                        timelines.asMap().remove(timeline.getKey(), timeline.getValue());
+                    }
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Занимает интервал подтверждаемого бронирования. Параллельное подтверждение пересекающегося бронирования
+     * сразу получает отказ, а читатели увидят бронирование только после коммита. При откате интервал освобождается.
+     * Перенос из незавершенных в таймлайн идет под той же блокировкой, что и проверка, поэтому проверка
+     * всегда находит бронирование в одном из двух наборов. Окончательная проверка — в базе под блокировкой
+     * строки вещи (BookingServiceImpl.approveBooking), здесь отсекаются конфликты внутри одного экземпляра.
+     */
+    public void reserve(Booking booking) {
+        if (booking.getStatus() != Status.APPROVED) {
+            return;
+        }
+        long itemId = booking.getItem().getId();
+        BookingItemDto entry = BookingMapper.toBookingItemDto(booking);
+        // обычно таймлайн загружается здесь, вне блокировки, и не задерживает вещи из той же полосы
+        getTimeline(itemId);
+        Lock lock = lockFor(itemId);
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        lock.lock();
+        try {
+            // таймлайн, сброшенный после коммита другого подтверждения, перечитывается уже вместе с ним
+            NavigableSet<BookingItemDto> timeline = getTimeline(itemId);
+            if (overlaps(itemId, timeline, entry.getStart(), entry.getEnd(), booking.getId())) {
+                throw new ValidateException("Вещь с id " + itemId + " уже забронирована на это время");
+            }
+            if (!transactional) {
+                timeline.add(entry);
+                return;
+            }
+            pending.compute(itemId, (id, entries) -> {
+                NavigableSet<BookingItemDto> result = entries == null ? new ConcurrentSkipListSet<>(BY_START) : entries;
+                result.add(entry);
+                return result;
+            });
+        } finally {
+            lock.unlock();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lock.lock();
+                try {
+                    changes.incrementAndGet();
+                    NavigableSet<BookingItemDto> current = timelines.getIfPresent(itemId);
+                    if (current != null) {
+                        current.add(entry);
+                    } else {
+                        // таймлайна нет или он еще загружается и мог прочитать базу до коммита:
+                        // invalidate дожидается загрузки и убирает ее результат, следующее обращение прочитает базу
+                        timelines.invalidate(itemId);
+                    }
+                    release(itemId, entry);
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                lock.lock();
+                try {
+                    release(itemId, entry);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Вместе с пользователем каскадом удалены его вещи и бронирования, в том числе чужих вещей.
+     * Каких именно вещей, событие не сообщает, поэтому таймлайны сбрасываются целиком.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        changes.incrementAndGet();
+        timelines.invalidateAll();
+    }
+
+    /**
+     * Без блокировки (isFree) незавершенные проверяются первыми: после коммита бронирование сначала
+     * попадает в таймлайн и только потом уходит из незавершенных.
+     */
+    private boolean overlaps(long itemId, NavigableSet<BookingItemDto> timeline, LocalDateTime start,
+                             LocalDateTime end, Long exceptId) {
+        NavigableSet<BookingItemDto> reserved = pending.get(itemId);
+        return reserved != null && overlaps(reserved, start, end, exceptId) || overlaps(timeline, start, end, exceptId);
+    }
+
+    private void release(long itemId, BookingItemDto entry) {
+        pending.computeIfPresent(itemId, (id, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    private Lock lockFor(long itemId) {
+        return locks[Math.floorMod(Long.hashCode(itemId), STRIPES)];
+    }
+
+    // само бронирование может уже быть в таймлайне, если он загружался после сброса изменений в базу
+    private static boolean overlaps(NavigableSet<BookingItemDto> timeline, LocalDateTime start, LocalDateTime end,
+                                    Long exceptId) {
+        for (BookingItemDto before : timeline.headSet(probe(start, Long.MAX_VALUE), false).descendingSet()) {
+            if (!before.getEnd().isAfter(start)) {
+                break;
+            }
+            if (!Objects.equals(before.getId(), exceptId)) {
+                return true;
+            }
+        }
+        for (BookingItemDto after : timeline.tailSet(probe(start, Long.MAX_VALUE), false)) {
+            if (!after.getStart().isBefore(end)) {
+                break;
+            }
+            if (!Objects.equals(after.getId(), exceptId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private NavigableSet<BookingItemDto> getTimeline(long itemId) {
+        return timelines.get(itemId, this::loadApproved);
+    }
+
+    /**
+     * Таймлайн живет в памяти долго, поэтому читается из основной базы, даже если первым к нему обратилась
+     * транзакция readOnly, которая идет в реплику (см. RoutingDataSource): тогда загрузка выполняется
+     * в отдельной пишущей транзакции. Без транзакции репозиторий открыл бы собственную, тоже readOnly.
+     */
+    private NavigableSet<BookingItemDto> loadApproved(long itemId) {
+        return primaryTemplate().execute(status -> {
+            NavigableSet<BookingItemDto> timeline = new ConcurrentSkipListSet<>(BY_START);
+            for (Booking booking : bookingRepository.findByItemIdAndStatus(itemId, Status.APPROVED)) {
+                timeline.add(BookingMapper.toBookingItemDto(booking));
+            }
+            return timeline;
+        });
+    }
+
+    private Map<Long, NavigableSet<BookingItemDto>> loadApproved(Set<Long> itemIds) {
+        return primaryTemplate().execute(status -> {
+            Map<Long, NavigableSet<BookingItemDto>> timelines = new HashMap<>();
+            itemIds.forEach(itemId -> timelines.put(itemId, new ConcurrentSkipListSet<>(BY_START)));
+            for (Booking booking : bookingRepository.findByItemIdInAndStatus(itemIds, Status.APPROVED)) {
+                timelines.get(booking.getItem().getId()).add(BookingMapper.toBookingItemDto(booking));
+            }
+            return timelines;
+        });
+    }
+
+    private TransactionTemplate primaryTemplate() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+        return template;
+    }
+
+    private static BookingItemDto probe(LocalDateTime date, long id) {
+        return BookingItemDto.builder()
+                .id(id)
+                .start(date)
+                .build();
+    }
+
+    private static Lock[] createLocks() {
+        Lock[] locks = new Lock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.booking.service.BookingSavedEvent;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Реплика отстает от основной базы, и только что созданное или подтвержденное бронирование может в ней
+ * еще не появиться. Поэтому арендатор и владелец вещи в течение заданного окна после изменения бронирования
+ * читают из основной базы. Пользователь запроса определяется по заголовку X-Sharer-User-Id.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private static final long MAX_USERS = 100_000;
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(MAX_USERS)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingSaved(BookingSavedEvent event) {
+        recentWriters.put(event.getBookerId(), Boolean.TRUE);
+        recentWriters.put(event.getOwnerId(), Boolean.TRUE);
+    }
+
+    public boolean isRecentWriter(long userId) {
+        return recentWriters.getIfPresent(userId) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long userId = parseUserId(request.getHeader(USER_HEADER));
+        if (userId == null || !isRecentWriter(userId)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RoutingDataSource.setPrimaryOnly();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RoutingDataSource.clearPrimaryOnly();
+        }
+    }
+
+    private static Long parseUserId(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            // некорректный заголовок отклонит контроллер
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Транзакции readOnly читают из реплики, все остальное идет в основную базу. Соединение выбирается в момент
+ * получения, а признак readOnly выставляется уже после начала транзакции, поэтому источник используется только
+ * за LazyConnectionDataSourceProxy: тот берет настоящее соединение при первом запросе.
+ * Поток может временно отказаться от реплики (см. {@link ReadYourWritesFilter}).
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    public RoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.<Object, Object>of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Чтения текущего потока идут в основную базу, пока не вызван {@link #clearPrimaryOnly()}.
+     */
+    public static void setPrimaryOnly() {
+        PRIMARY_ONLY.set(Boolean.TRUE);
+    }
+
+    public static void clearPrimaryOnly() {
+        PRIMARY_ONLY.remove();
+    }
+
+    public static Route currentRoute() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PRIMARY_ONLY.get() == null) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+}
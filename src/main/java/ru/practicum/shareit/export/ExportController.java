@@ -0,0 +1,46 @@
+package ru.practicum.shareit.export;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.export.service.ExportService;
+
+/**
+ * Полная выгрузка данных для аналитики. Тело ответа пишется в отдельном потоке по мере чтения из базы.
+ */
+@RestController
+@RequestMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+@Slf4j
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/users")
+    public StreamingResponseBody exportUsers() {
+        log.info("Выгрузка пользователей");
+        return exportService::exportUsers;
+    }
+
+    @GetMapping("/items")
+    public StreamingResponseBody exportItems() {
+        log.info("Выгрузка вещей");
+        return exportService::exportItems;
+    }
+
+    @GetMapping("/bookings")
+    public StreamingResponseBody exportBookings() {
+        log.info("Выгрузка бронирований");
+        return exportService::exportBookings;
+    }
+
+    @GetMapping("/comments")
+    public StreamingResponseBody exportComments() {
+        log.info("Выгрузка комментариев");
+        return exportService::exportComments;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.export.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+
+    void exportUsers(OutputStream out) throws IOException;
+
+    void exportItems(OutputStream out) throws IOException;
+
+    void exportBookings(OutputStream out) throws IOException;
+
+    void exportComments(OutputStream out) throws IOException;
+}
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.export.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка таблиц в NDJSON: одна строка JSON на запись. Записи читаются курсором и сразу пишутся в ответ,
+ * контекст персистентности очищается каждые {@link #CLEAR_INTERVAL} записей, поэтому память не зависит от объема.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ExportServiceImpl implements ExportService {
+
+    static final int CLEAR_INTERVAL = 1000;
+
+    private final UserRepository userRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final BookingRepository bookingRepository;
+
+    private final CommentRepository commentRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public void exportUsers(OutputStream out) throws IOException {
+        try (Stream<User> users = userRepository.streamAll()) {
+            log.info("Выгружено пользователей: {}", write(users.map(UserMapper::toUserDto), out));
+        }
+    }
+
+    @Override
+    public void exportItems(OutputStream out) throws IOException {
+        try (Stream<ItemDto> items = itemRepository.streamAll()) {
+            log.info("Выгружено вещей: {}", write(items, out));
+        }
+    }
+
+    @Override
+    public void exportBookings(OutputStream out) throws IOException {
+        try (Stream<BookingResponseDto> bookings = bookingRepository.streamAll()) {
+            log.info("Выгружено бронирований: {}", write(bookings, out));
+        }
+    }
+
+    @Override
+    public void exportComments(OutputStream out) throws IOException {
+        try (Stream<CommentDto> comments = commentRepository.streamAll()) {
+            log.info("Выгружено комментариев: {}", write(comments, out));
+        }
+    }
+
+    private long write(Stream<?> rows, OutputStream out) throws IOException {
+        // сброс в сокет после каждой записи не нужен, генератор сам пишет по заполнении буфера
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+}
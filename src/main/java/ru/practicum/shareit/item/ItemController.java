@@ -2,16 +2,22 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookingAndCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.service.ItemImportService;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -23,12 +29,21 @@ public class ItemController {
 
     private final ItemService itemService;
 
+    private final ItemImportService itemImportService;
+
     @PostMapping
     public ItemDto addItem(@RequestBody @Valid ItemDto itemDto, @RequestHeader("X-Sharer-User-Id") Long userId) {
         log.info("Добавлена вещь {}", itemDto.getName());
         return itemService.addItem(userId, itemDto);
     }
 
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ItemImportResultDto importItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                           InputStream body) throws IOException {
+        log.info("Загрузка вещей пользователя {}", userId);
+        return itemImportService.importItems(userId, body);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(@RequestHeader("X-Sharer-User-Id") Long userId,
                               @PathVariable long itemId,
@@ -45,6 +60,16 @@ public class ItemController {
         return itemService.getItemById(itemId, userId);
     }
 
+    /**
+     * Открытые запросы из индекса в памяти: и созданные до сохранения вещи, и созданные после.
+     */
+    @GetMapping("/{itemId}/matching-requests")
+    public List<RequestMatchDto> getMatchingRequests(@PathVariable Long itemId,
+                                                     @RequestHeader("X-Sharer-User-Id") Long userId) {
+        log.info("Открытые запросы, подходящие к вещи {}", itemId);
+        return itemService.getMatchingRequests(userId, itemId);
+    }
+
     @GetMapping
     public List<ItemBookingAndCommentDto> getAllItemsByUser(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                             @RequestParam(name = "from", defaultValue = "0")
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог загрузки вещей: счетчики по всем строкам и ошибки по номерам строк.
+ * Ошибок хранится не больше заданного числа, чтобы ответ не рос вместе с файлом.
+ */
+@Data
+@NoArgsConstructor
+public class ItemImportResultDto {
+    private int total;
+    private int created;
+    private int failed;
+    private List<LineError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private int line;
+        private String message;
+    }
+}
@@ -2,23 +2,84 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     List<Item> findAllByOwnerId(long ownerId, Pageable pageable);
 
+    /**
+     * Порядок задан в самом запросе: совпадения по названию выше, внутри группы — по id.
+     * Сортировку в {@code pageable} передавать нельзя: Spring Data принимает {@code order by case ... end}
+     * за подзапрос и дописывает второй {@code order by}.
+     */
     @Query(" select i from Item i " +
-            "where upper(i.name) like upper(concat('%', ?1, '%')) " +
-            " or upper(i.description) like upper(concat('%', ?1, '%'))" +
-            " and i.available = true")
+            "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            " or upper(i.description) like upper(concat('%', ?1, '%')))" +
+            " and i.available = true " +
+            "order by case when upper(i.name) like upper(concat('%', ?1, '%')) then 0 else 1 end, i.id")
     List<Item> search(String text, Pageable pageable);
 
+    /**
+     * Блокировка строки вещи до конца транзакции: подтверждения бронирований одной вещи идут по очереди
+     * на всех экземплярах приложения.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = ?1")
+    Optional<Item> lockById(long itemId);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("select i from Item i where i.request.id = ?1")
     List<Item> findAllByRequestId(long requestId);
 
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query("select i from Item i where i.request.id in ?1")
     List<Item> findAllByRequestIdIn(List<Long> requestIds);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, r.id) " +
+            "from Item i left join i.request r")
+    List<ItemDto> findAllForSearchIndex();
+
+    /**
+     * Доступные вещи с владельцами, в названии или описании которых есть слово, новые первыми.
+     * Кандидаты для сопоставления с запросом, идут по тем же триграммным индексам, что и поиск.
+     */
+    @Query("select i.id as id, i.name as name, i.description as description, i.owner.id as ownerId " +
+            "from Item i where (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            " or upper(i.description) like upper(concat('%', ?1, '%'))) and i.available = true " +
+            "order by i.id desc")
+    List<AvailableItemView> findAvailableContaining(String word, Pageable pageable);
+
+    /**
+     * Вещи, которые удалятся каскадом вместе с пользователем: его собственные и ответы на его запросы.
+     */
+    @Query("select i.id from Item i left join i.request r where i.owner.id = ?1 or r.requestor.id = ?1")
+    List<Long> findIdsDeletedWithUser(long userId);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, r.id) " +
+            "from Item i left join i.request r order by i.id")
+    Stream<ItemDto> streamAll();
+
+    interface AvailableItemView {
+        Long getId();
+
+        String getName();
+
+        String getDescription();
+
+        Long getOwnerId();
+    }
 }
 
@@ -0,0 +1,185 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto.LineError;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Загрузка вещей из JSON-массива или NDJSON. Тело читается по одной записи, проверенные записи
+ * сохраняются пачками по {@link #CHUNK_SIZE} в отдельных транзакциях, после каждой пачки
+ * контекст персистентности очищается. Пачки, сохраненные до ошибки в тексте JSON, остаются в базе.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemImportServiceImpl implements ItemImportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    static final int MAX_ERRORS = 1000;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final UserRepository userRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final ItemRequestRepository itemRequestRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public ItemImportResultDto importItems(long userId, InputStream body) throws IOException {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Отсутствует пользователь c id " + userId);
+        }
+
+        ItemImportResultDto result = new ItemImportResultDto();
+        List<Line> chunk = new ArrayList<>(CHUNK_SIZE);
+        // MappingIterator сам пропускает открывающую скобку, если записи пришли массивом
+        try (MappingIterator<ItemDto> records = objectMapper.readerFor(ItemDto.class).readValues(body)) {
+            int number = 0;
+            while (true) {
+                number++;
+                ItemDto itemDto;
+                try {
+                    if (!records.hasNextValue()) {
+                        number--;
+                        break;
+                    }
+                    itemDto = records.nextValue();
+                } catch (JsonParseException e) {
+                    // после синтаксической ошибки дальше читать нельзя
+                    fail(result, number, "Некорректный JSON: " + e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    fail(result, number, "Некорректная запись: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto);
+                if (!violations.isEmpty()) {
+                    fail(result, number, violations.stream()
+                            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining("; ")));
+                    continue;
+                }
+                itemDto.setId(null);
+                chunk.add(new Line(number, itemDto));
+                if (chunk.size() == CHUNK_SIZE) {
+                    saveChunk(userId, chunk, result);
+                    chunk.clear();
+                }
+            }
+            result.setTotal(number);
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(userId, chunk, result);
+        }
+        log.info("Пользователь {} загрузил вещи: строк {}, сохранено {}, с ошибками {}",
+                userId, result.getTotal(), result.getCreated(), result.getFailed());
+        return result;
+    }
+
+    private void saveChunk(long userId, List<Line> chunk, ItemImportResultDto result) {
+        List<LineError> rejected = new ArrayList<>();
+        Integer saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                User owner = userRepository.getReferenceById(userId);
+                Map<Long, ItemRequest> requests = findRequests(chunk);
+
+                List<Item> items = new ArrayList<>(chunk.size());
+                for (Line line : chunk) {
+                    Long requestId = line.itemDto.getRequestId();
+                    ItemRequest request = requestId == null ? null : requests.get(requestId);
+                    if (requestId != null && request == null) {
+                        rejected.add(new LineError(line.number, "Отсутствует запрос с id " + requestId));
+                        continue;
+                    }
+                    Item item = ItemMapper.toItem(line.itemDto, owner);
+                    item.setRequest(request);
+                    items.add(item);
+                }
+
+                // сброс через репозиторий: ошибка вставки приходит переведенной в DataAccessException
+                itemRepository.saveAllAndFlush(items);
+                items.forEach(item -> eventPublisher.publishEvent(
+                        new ItemSavedEvent(ItemMapper.toItemDto(item), userId, true)));
+                entityManager.clear();
+                return items.size();
+            });
+        } catch (DataAccessException e) {
+            log.error("Не удалось сохранить пачку вещей пользователя {}", userId, e);
+            chunk.forEach(line -> fail(result, line.number, "Не удалось сохранить вещь: " + e.getMostSpecificCause().getMessage()));
+            return;
+        }
+        rejected.forEach(error -> fail(result, error.getLine(), error.getMessage()));
+        result.setCreated(result.getCreated() + Objects.requireNonNull(saved));
+    }
+
+    private Map<Long, ItemRequest> findRequests(List<Line> chunk) {
+        Set<Long> requestIds = chunk.stream()
+                .map(line -> line.itemDto.getRequestId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (requestIds.isEmpty()) {
+            return Map.of();
+        }
+        return itemRequestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+    }
+
+    private static void fail(ItemImportResultDto result, int line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_ERRORS) {
+            result.getErrors().add(new LineError(line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Line {
+        private final int number;
+        private final ItemDto itemDto;
+    }
+}
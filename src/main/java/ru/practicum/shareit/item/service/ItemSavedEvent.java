@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ItemSavedEvent {
+    private final ItemDto item;
+    private final long ownerId;
+    private final boolean created;
+}
@@ -0,0 +1,246 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.service.UserDeletedEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Триграммный индекс по названию и описанию вещей для поиска без обращения к базе.
+ * Списки вхождений хранятся как отсортированные массивы id, совпадения проверяются по тексту из индекса.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private final NavigableMap<Long, Document> documents = new TreeMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${shareit.search.in-memory:false}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * База читается под блокировкой записи: события, закоммиченные во время чтения, ждут блокировку
+     * и применяются поверх прочитанного, а не теряются при очистке индекса.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        List<ItemDto> items;
+        lock.writeLock().lock();
+        try {
+            items = itemRepository.findAllForSearchIndex();
+            postings.clear();
+            documents.clear();
+            items.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс поиска вещей построен, вещей в индексе: {}", items.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(event.getItem().getId());
+            put(event.getItem());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            event.getItemIds().forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String text, int from, int size) {
+        String query = text.toLowerCase(Locale.ROOT);
+        List<Long> byName = new ArrayList<>();
+        List<Long> byDescription = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            if (query.length() < GRAM) {
+                documents.forEach((id, document) -> match(id, document, query, byName, byDescription));
+            } else {
+                searchByGrams(query, byName, byDescription);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long offset = (long) from * size;
+        if (offset >= byName.size() + byDescription.size()) {
+            return Collections.emptyList();
+        }
+        byName.addAll(byDescription);
+        return byName.subList((int) offset, (int) Math.min(offset + size, byName.size()));
+    }
+
+    private void searchByGrams(String query, List<Long> byName, List<Long> byDescription) {
+        List<Postings> lists = new ArrayList<>();
+        for (String gram : toGrams(query)) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return;
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        Postings shortest = lists.get(0);
+        for (int i = 0; i < shortest.size; i++) {
+            long id = shortest.ids[i];
+            if (containsAll(lists, id)) {
+                match(id, documents.get(id), query, byName, byDescription);
+            }
+        }
+    }
+
+    private static boolean containsAll(List<Postings> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void match(long id, Document document, String query, List<Long> byName, List<Long> byDescription) {
+        if (!document.available) {
+            return;
+        }
+        if (document.name.contains(query)) {
+            byName.add(id);
+        } else if (document.description.contains(query)) {
+            byDescription.add(id);
+        }
+    }
+
+    private void put(ItemDto item) {
+        Document document = new Document(lower(item.getName()), lower(item.getDescription()),
+                Boolean.TRUE.equals(item.getAvailable()));
+        documents.put(item.getId(), document);
+        for (String gram : document.grams()) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(item.getId());
+        }
+    }
+
+    private void remove(long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String gram : document.grams()) {
+            Postings list = postings.get(gram);
+            list.remove(id);
+            if (list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static String lower(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> toGrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Document {
+        private final String name;
+        private final String description;
+        private final boolean available;
+
+        private Collection<String> grams() {
+            Set<String> grams = toGrams(name);
+            grams.addAll(toGrams(description));
+            return grams;
+        }
+    }
+
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        private boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void add(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        private void remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.item.service;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookingAndCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 
 import java.util.List;
 
@@ -19,4 +20,6 @@ public interface ItemService {
     List<ItemDto> searchItem(String text, int from, int size);
 
     CommentDto addComment(long userId, long itemId, CommentDto commentDto);
+
+    List<RequestMatchDto> getMatchingRequests(long userId, long itemId);
 }
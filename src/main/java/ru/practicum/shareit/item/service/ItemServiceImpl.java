@@ -2,8 +2,12 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingRepository;
@@ -11,6 +15,7 @@ import ru.practicum.shareit.booking.dto.BookingItemDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingTimeline;
 import ru.practicum.shareit.exception.NotFoundException;
 
 import ru.practicum.shareit.exception.ValidateException;
@@ -19,8 +24,10 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.RequestMatcher;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -44,6 +51,14 @@ public class ItemServiceImpl implements ItemService {
 
     private final ItemRequestRepository itemRequestRepository;
 
+    private final BookingTimeline bookingTimeline;
+
+    private final ItemSearchIndex itemSearchIndex;
+
+    private final RequestMatcher requestMatcher;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
     public ItemDto addItem(long userId, ItemDto itemDto) {
         User user = userRepository.findById(userId).orElseThrow(() ->
@@ -55,9 +70,13 @@ public class ItemServiceImpl implements ItemService {
             item.setRequest(itemRequest);
         }
         item = itemRepository.save(item);
-        return ItemMapper.toItemDto(item);
+        ItemDto savedItemDto = ItemMapper.toItemDto(item);
+        eventPublisher.publishEvent(new ItemSavedEvent(savedItemDto, userId, true));
+        return savedItemDto;
     }
 
+    // повторное применение тех же полей даёт тот же результат, поэтому при конфликте версий запрос повторяется
+    @Retryable(value = ObjectOptimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 50))
     @Override
     public ItemDto updateItem(long userId, long itemId, ItemDto itemDto) {
         User user = userRepository.findById(userId).orElseThrow(() ->
@@ -81,7 +100,9 @@ public class ItemServiceImpl implements ItemService {
         if (item.getAvailable() != null) {
             currentItem.setAvailable(item.getAvailable());
         }
-        return ItemMapper.toItemDto(itemRepository.save(currentItem));
+        ItemDto savedItemDto = ItemMapper.toItemDto(itemRepository.save(currentItem));
+        eventPublisher.publishEvent(new ItemSavedEvent(savedItemDto, userId, false));
+        return savedItemDto;
     }
 
     @Transactional(readOnly = true)
@@ -92,8 +113,8 @@ public class ItemServiceImpl implements ItemService {
                 new NotFoundException("Отсутствует вещь c id " + itemId));
 
         LocalDateTime date = LocalDateTime.now();
-        BookingItemDto nextBookings = getNextBooking(itemId, userId, date);
-        BookingItemDto lastBookings = getLastBooking(itemId, userId, date);
+        BookingItemDto nextBookings = getNextBooking(item, userId, date);
+        BookingItemDto lastBookings = getLastBooking(item, userId, date);
         List<CommentDto> allComments = getComments(itemId);
 
         return ItemMapper.toItemBookingAndCommentDto(item,
@@ -105,8 +126,9 @@ public class ItemServiceImpl implements ItemService {
     @Transactional(readOnly = true)
     @Override
     public List<ItemBookingAndCommentDto> getAllItemsByUser(long userId, int from, int size) {
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Отсутствует пользователь c id " + userId));
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Отсутствует пользователь c id " + userId);
+        }
 
         List<Item> items = itemRepository.findAllByOwnerId(userId,
                 PageRequest.of(from, size, Sort.by("id").ascending()));
@@ -116,12 +138,17 @@ public class ItemServiceImpl implements ItemService {
         }
         LocalDateTime date = LocalDateTime.now();
 
-        HashMap<Long, BookingItemDto> nextBookingsForItemList = getNextBookingsForItemList(items.stream()
-                .map(Item::getId).collect(Collectors.toList()), userId, date);
-        HashMap<Long, BookingItemDto> lastBookingsForItemList = getLastBookingsForItemList(items.stream()
-                .map(Item::getId).collect(Collectors.toList()), userId, date);
-        HashMap<Long, List<CommentDto>> commentsForAllItems = getCommentsForAllItems(items.stream()
-                .map(Item::getId).collect(Collectors.toList()));
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        HashMap<Long, BookingItemDto> lastBookingsForItemList = new HashMap<>();
+        HashMap<Long, BookingItemDto> nextBookingsForItemList = new HashMap<>();
+        for (Booking booking : bookingRepository.findLastAndNextApprovedByItemIdIn(itemIds, date)) {
+            if (booking.getStart().isBefore(date)) {
+                lastBookingsForItemList.put(booking.getItem().getId(), BookingMapper.toBookingItemDto(booking));
+            } else {
+                nextBookingsForItemList.put(booking.getItem().getId(), BookingMapper.toBookingItemDto(booking));
+            }
+        }
+        HashMap<Long, List<CommentDto>> commentsForAllItems = getCommentsForAllItems(itemIds);
 
         List<ItemBookingAndCommentDto> itemBookingAndCommentDtoList = new ArrayList<>();
         for (Item item : items) {
@@ -141,12 +168,12 @@ public class ItemServiceImpl implements ItemService {
         if (text.isBlank()) {
             return allItemDto;
         }
-        List<Item> items = itemRepository.search(text, PageRequest.of(from, size, Sort.by("id").ascending()));
+        List<Item> items = itemSearchIndex.isEnabled()
+                ? findIndexedItems(text, from, size)
+                : itemRepository.search(text, PageRequest.of(from, size));
 
         for (Item item : items) {
-            if (Objects.equals(item.getAvailable(), true)) {
-                allItemDto.add(ItemMapper.toItemDto(item));
-            }
+            allItemDto.add(ItemMapper.toItemDto(item));
         }
         return allItemDto;
     }
@@ -175,66 +202,49 @@ public class ItemServiceImpl implements ItemService {
         return CommentMapper.toCommentDto(comment);
     }
 
-    private BookingItemDto getLastBooking(Long itemId, Long userId, LocalDateTime date) {
-        List<Booking> lastBookings = bookingRepository.findByItemId(itemId, Sort.by("end").descending());
-        for (Booking booking : lastBookings) {
-            if (booking.getStart().isBefore(date)
-                    && booking.getItem().getOwner().getId().equals(userId)
-                    && booking.getStatus().equals(Status.APPROVED))
-                return BookingMapper.toBookingItemDto(booking);
+    @Transactional(readOnly = true)
+    @Override
+    public List<RequestMatchDto> getMatchingRequests(long userId, long itemId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Отсутствует пользователь c id " + userId);
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Отсутствует вещь c id " + itemId);
         }
-        return null;
+        return requestMatcher.findRequestsForItem(itemId);
     }
 
+    private BookingItemDto getLastBooking(Item item, Long userId, LocalDateTime date) {
+        if (!item.getOwner().getId().equals(userId)) {
+            return null;
+        }
+        return bookingTimeline.findLast(item.getId(), date);
+    }
 
-    private BookingItemDto getNextBooking(Long itemId, Long userId, LocalDateTime date) {
-        List<Booking> nextBookings = bookingRepository.findByItemId(itemId, Sort.by("start").ascending());
-        for (Booking booking : nextBookings) {
-            if (booking.getStart().isAfter(date)
-                    && booking.getItem().getOwner().getId().equals(userId)
-                    && booking.getStatus().equals(Status.APPROVED))
-                return BookingMapper.toBookingItemDto(booking);
+    private BookingItemDto getNextBooking(Item item, Long userId, LocalDateTime date) {
+        if (!item.getOwner().getId().equals(userId)) {
+            return null;
         }
-        return null;
+        return bookingTimeline.findNext(item.getId(), date);
     }
 
 
+    private List<Item> findIndexedItems(String text, int from, int size) {
+        List<Long> ids = itemSearchIndex.search(text, from, size);
+        Map<Long, Item> items = itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+        return ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     private List<CommentDto> getComments(Long itemId) {
         List<Comment> comments = commentRepository.findAllByItemId(itemId);
         return comments.stream().map(CommentMapper::toCommentDto).collect(Collectors.toList());
     }
 
 
-    private HashMap<Long, BookingItemDto> getNextBookingsForItemList(List<Long> itemsIds, Long userId, LocalDateTime date) {
-        List<Booking> nextBookingsItems = bookingRepository.findByItemIdIn(itemsIds, Sort.by("start").ascending());
-        HashMap<Long, BookingItemDto> itemsBookings = new HashMap<>();
-        for (Booking booking : nextBookingsItems) {
-            if (!itemsBookings.containsKey(booking.getItem().getId())) {
-                if (booking.getStart().isAfter(date)
-                        && booking.getItem().getOwner().getId().equals(userId)
-                        && booking.getStatus().equals(Status.APPROVED)) {
-                    itemsBookings.put(booking.getItem().getId(), BookingMapper.toBookingItemDto(booking));
-                }
-            }
-        }
-        return itemsBookings;
-    }
-
-    private HashMap<Long, BookingItemDto> getLastBookingsForItemList(List<Long> itemsIds, Long userId, LocalDateTime date) {
-        List<Booking> lastBookingsItems = bookingRepository.findByItemIdIn(itemsIds, Sort.by("end").descending());
-        HashMap<Long, BookingItemDto> itemsBookings = new HashMap<>();
-        for (Booking booking : lastBookingsItems) {
-            if (!itemsBookings.containsKey(booking.getItem().getId())) {
-                if (booking.getStart().isBefore(date)
-                        && booking.getItem().getOwner().getId().equals(userId)
-                        && booking.getStatus().equals(Status.APPROVED)) {
-                    itemsBookings.put(booking.getItem().getId(), BookingMapper.toBookingItemDto(booking));
-                }
-            }
-        }
-        return itemsBookings;
-    }
-
     private HashMap<Long, List<CommentDto>> getCommentsForAllItems(List<Long> itemsIds) {
         List<Comment> allComments = commentRepository.findByItemIdIn(itemsIds);
         List<CommentDto> allCommentsDto = allComments.stream().map(CommentMapper::toCommentDto).collect(Collectors.toList());
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+
+/**
+ * Подсчет SQL-запросов на HTTP-запрос и бюджет на них. Метрики пула Hikari и статистика Hibernate
+ * (hibernate-micrometer) подключаются автоконфигурацией Spring Boot, все вместе отдается в формате
+ * Prometheus на /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public QueryCountInspector queryCountInspector() {
+        return new QueryCountInspector();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountHibernateCustomizer(QueryCountInspector inspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(
+            QueryCountInspector inspector,
+            MeterRegistry registry,
+            @Value("${shareit.sql.budget.statements:20}") int maxStatements,
+            @Value("${shareit.sql.budget.repeats:5}") int maxRepeats,
+            @Value("${shareit.sql.budget.fail:false}") boolean failOnViolation,
+            @Value("${shareit.sql.budget.exclude:}") Set<String> excluded) {
+        return new FilterRegistrationBean<>(new QueryBudgetFilter(inspector, registry, maxStatements, maxRepeats,
+                failOnViolation, excluded));
+    }
+}
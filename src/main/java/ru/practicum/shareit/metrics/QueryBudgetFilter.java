@@ -0,0 +1,100 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Число SQL-запросов на HTTP-запрос (shareit.http.queries с тегами метода и шаблона пути, как у http.server.requests)
+ * и бюджет на них: не больше maxStatements запросов всего и не больше maxRepeats повторов одного и того же запроса.
+ * Нарушение пишется в лог и в счетчик shareit.http.queries.violations. Проверка идет после обработки запроса,
+ * когда ответ уже может быть отправлен клиенту, поэтому исключение с failOnViolation нужно только тестам
+ * (профиль test), чтобы N+1 ронял их: в работе оно сломало бы уже отданный ответ.
+ * Для асинхронных ответов (выгрузки, SSE) учитываются только запросы до начала асинхронной обработки.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    public static final String SUMMARY = "shareit.http.queries";
+
+    public static final String VIOLATIONS = "shareit.http.queries.violations";
+
+    private final QueryCountInspector inspector;
+
+    private final MeterRegistry registry;
+
+    private final int maxStatements;
+
+    private final int maxRepeats;
+
+    private final boolean failOnViolation;
+
+    // шаблоны путей пакетных операций, которым бюджет не нужен
+    private final Set<String> excluded;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        inspector.reset();
+        try {
+            chain.doFilter(request, response);
+            check(request);
+        } finally {
+            inspector.clear();
+        }
+    }
+
+    private void check(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        long count = inspector.getCount();
+        DistributionSummary.builder(SUMMARY)
+                .description("SQL-запросы на один HTTP-запрос")
+                .baseUnit("queries")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry)
+                .record(count);
+
+        if (excluded.contains(uri)) {
+            return;
+        }
+        String violation = null;
+        String reason = null;
+        if (count > maxStatements) {
+            violation = String.format("%s %s: %d SQL-запросов при бюджете %d", request.getMethod(), uri, count,
+                    maxStatements);
+            reason = "statements";
+        } else if (inspector.getMaxRepeats() > maxRepeats) {
+            violation = String.format("%s %s: запрос выполнен %d раз, похоже на N+1: %s", request.getMethod(), uri,
+                    inspector.getMaxRepeats(), inspector.getMostRepeated());
+            reason = "repeats";
+        }
+        if (violation == null) {
+            return;
+        }
+        Counter.builder(VIOLATIONS)
+                .description("HTTP-запросы, превысившие бюджет SQL-запросов")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+        log.warn("Превышен бюджет SQL-запросов. {}", violation);
+        if (failOnViolation) {
+            throw new IllegalStateException("Превышен бюджет SQL-запросов. " + violation);
+        }
+    }
+}
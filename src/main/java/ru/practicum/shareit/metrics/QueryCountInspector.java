@@ -0,0 +1,66 @@
+package ru.practicum.shareit.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Считает SQL-запросы, которые Hibernate готовит в текущем потоке, всего и по тексту запроса. Параметры
+ * в тексте уже заменены на ?, поэтому одинаковый текст — одна и та же форма запроса, и повтор одной формы
+ * много раз за HTTP-запрос означает N+1. Счетчики сбрасываются в начале HTTP-запроса и удаляются из потока
+ * в его конце (QueryBudgetFilter).
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<Statements> STATEMENTS = ThreadLocal.withInitial(Statements::new);
+
+    @Override
+    public String inspect(String sql) {
+        Statements statements = STATEMENTS.get();
+        statements.count++;
+        int repeats = statements.repeats.merge(sql, 1, Integer::sum);
+        if (repeats > statements.maxRepeats) {
+            statements.maxRepeats = repeats;
+            statements.mostRepeated = sql;
+        }
+        return sql;
+    }
+
+    public void reset() {
+        Statements statements = STATEMENTS.get();
+        statements.count = 0;
+        statements.repeats.clear();
+        statements.maxRepeats = 0;
+        statements.mostRepeated = null;
+    }
+
+    /**
+     * Убирает счетчики из потока, чтобы поток из пула не держал тексты запросов до следующего HTTP-запроса.
+     */
+    public void clear() {
+        STATEMENTS.remove();
+    }
+
+    public long getCount() {
+        return STATEMENTS.get().count;
+    }
+
+    /**
+     * Сколько раз выполнялся самый частый запрос.
+     */
+    public int getMaxRepeats() {
+        return STATEMENTS.get().maxRepeats;
+    }
+
+    public String getMostRepeated() {
+        return STATEMENTS.get().mostRepeated;
+    }
+
+    private static final class Statements {
+        private final Map<String, Integer> repeats = new HashMap<>();
+        private long count;
+        private int maxRepeats;
+        private String mostRepeated;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.State;
+
+import java.util.Collection;
+
+/**
+ * Время выполнения всех публичных методов сервисов (shareit.service) и размер возвращаемых списков
+ * (shareit.service.result.size). Аспект снаружи транзакции и повторов, поэтому в замер входят коммит
+ * и все попытки — то же время, что видит контроллер.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    public static final String TIMER = "shareit.service";
+
+    public static final String RESULT_SIZE = "shareit.service.result.size";
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+
+    @Around("execution(public * ru.practicum.shareit..service.*ServiceImpl.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        Object result = null;
+        String exception = NONE;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+            String method = joinPoint.getSignature().getName();
+            // у одного имени метрики в Prometheus должен быть одинаковый набор тегов, поэтому пустые значения — none
+            sample.stop(Timer.builder(TIMER)
+                    .description("Время выполнения методов сервисов")
+                    .tag("class", className)
+                    .tag("method", method)
+                    .tag("state", state(joinPoint.getArgs()))
+                    .tag("size", sizeBucket(result))
+                    .tag("exception", exception)
+                    .register(registry));
+            if (result instanceof Collection) {
+                DistributionSummary.builder(RESULT_SIZE)
+                        .description("Размер списков, возвращаемых сервисами")
+                        .tag("class", className)
+                        .tag("method", method)
+                        .register(registry)
+                        .record(((Collection<?>) result).size());
+            }
+        }
+    }
+
+    private static String state(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof State) {
+                return ((State) arg).name();
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Точный размер дал бы неограниченное число рядов, в теге только порядок величины.
+     */
+    static String sizeBucket(Object result) {
+        if (!(result instanceof Collection)) {
+            return NONE;
+        }
+        int size = ((Collection<?>) result).size();
+        if (size == 0) {
+            return "0";
+        } else if (size <= 10) {
+            return "1-10";
+        } else if (size <= 100) {
+            return "11-100";
+        } else if (size <= 1000) {
+            return "101-1000";
+        }
+        return "1000+";
+    }
+}
@@ -2,10 +2,15 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
 import javax.validation.Valid;
@@ -36,11 +41,24 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestWithItemsDto> getAllRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                        @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero int from,
-                                                        @RequestParam(name = "size", defaultValue = "10") @Positive int size) {
+    public ResponseEntity<List<ItemRequestWithItemsDto>> getAllRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                        @RequestParam(name = "from", defaultValue = "0") @PositiveOrZero int from,
+                                                                        @RequestParam(name = "size", defaultValue = "10") @Positive int size,
+                                                                        @RequestParam(required = false) String cursor) {
         log.info("Список всех запросов");
-        return itemRequestService.getAllRequests(userId, from, size);
+        List<ItemRequestWithItemsDto> requests = cursor == null
+                ? itemRequestService.getAllRequests(userId, from, size)
+                : itemRequestService.getRequestsAfter(userId, PageCursor.decode(cursor), size);
+        return PageCursor.withNextCursor(requests, size, ItemRequestController::toCursor);
+    }
+
+    /**
+     * Новые запросы других пользователей (событие request) и вещи, добавленные в ответ на запросы (событие item).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        log.info("Подписка на поток запросов пользователя с id {}", userId);
+        return itemRequestService.subscribe(userId);
     }
 
     @GetMapping("/{requestId}")
@@ -49,4 +67,18 @@ public class ItemRequestController {
         log.info("Информация о запросе с id {}", requestId);
         return itemRequestService.getRequestById(userId, requestId);
     }
+
+    /**
+     * Подходящие вещи из индекса в памяти: уже существовавшие при создании запроса и сохраненные после.
+     */
+    @GetMapping("/{requestId}/suggestions")
+    public List<RequestMatchDto> getSuggestions(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                @PathVariable Long requestId) {
+        log.info("Подходящие вещи для запроса с id {}", requestId);
+        return itemRequestService.getSuggestions(userId, requestId);
+    }
+
+    private static PageCursor toCursor(ItemRequestWithItemsDto request) {
+        return new PageCursor(request.getCreated(), request.getId());
+    }
 }
@@ -3,10 +3,15 @@ package ru.practicum.shareit.request.dto;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class ItemRequestMapper {
@@ -38,4 +43,31 @@ public final class ItemRequestMapper {
                 items
         );
     }
+
+    /**
+     * Раскладывает вещи по запросам за один проход по каждому списку, порядок запросов сохраняется.
+     * Вещи без запроса и вещи чужих запросов пропускаются.
+     */
+    public static List<ItemRequestWithItemsDto> toItemRequestWithListItemsDtos(List<ItemRequest> requests,
+                                                                              List<Item> items) {
+        Map<Long, List<ItemDto>> itemsByRequest = new HashMap<>(Math.max(16, requests.size() * 4 / 3 + 1));
+        for (ItemRequest request : requests) {
+            itemsByRequest.put(request.getId(), new ArrayList<>());
+        }
+        for (Item item : items) {
+            if (item.getRequest() == null) {
+                continue;
+            }
+            List<ItemDto> requestItems = itemsByRequest.get(item.getRequest().getId());
+            if (requestItems != null) {
+                requestItems.add(ItemMapper.toItemDto(item));
+            }
+        }
+
+        List<ItemRequestWithItemsDto> result = new ArrayList<>(requests.size());
+        for (ItemRequest request : requests) {
+            result.add(toItemRequestWithListItemsDto(request, itemsByRequest.get(request.getId())));
+        }
+        return result;
+    }
 }
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Кандидат на ответ: вещь, описание которой похоже на открытый запрос.
+ * score — доля слов запроса, найденных в названии и описании вещи.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestMatchDto {
+    private Long requestId;
+    private Long itemId;
+    private double score;
+}
@@ -2,14 +2,49 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
+    @Query("select r from ItemRequest r where r.requestor.id = ?1")
     List<ItemRequest> findAllByRequestorId(Long userId, Sort sort);
 
+    @Query("select r.id from ItemRequest r where r.requestor.id = ?1")
+    List<Long> findIdsByRequestorId(long userId);
+
+    @EntityGraph(attributePaths = "requestor")
     List<ItemRequest> findAllByRequestorIdNot(Long userId, Pageable page);
+
+    @EntityGraph(attributePaths = "requestor")
+    @Query("select r from ItemRequest r where r.requestor.id <> :userId " +
+            "and (r.created < :created or (r.created = :created and r.id < :id))")
+    List<ItemRequest> findAllByRequestorIdNotAfter(Long userId, LocalDateTime created, long id, Pageable page);
+
+    /**
+     * Последние запросы вместе с авторами для ленты в памяти.
+     */
+    @EntityGraph(attributePaths = "requestor")
+    @Query("select r from ItemRequest r")
+    List<ItemRequest> findFeed(Pageable page);
+
+    /**
+     * Запросы, на которые еще не ответили ни одной вещью. Читается один раз при старте для индекса сопоставления.
+     */
+    @Query("select r.id as id, r.description as description, r.requestor.id as requestorId " +
+            "from ItemRequest r where not exists (select i.id from Item i where i.request = r)")
+    List<OpenRequestView> findAllOpen();
+
+    interface OpenRequestView {
+        Long getId();
+
+        String getDescription();
+
+        Long getRequestorId();
+    }
 }
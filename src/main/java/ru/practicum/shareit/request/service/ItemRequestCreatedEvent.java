@@ -0,0 +1,19 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ItemRequestCreatedEvent {
+    private final ItemRequestDto request;
+    private final UserDto requestor;
+
+    public long getRequestorId() {
+        return requestor.getId();
+    }
+}
@@ -1,7 +1,10 @@
 package ru.practicum.shareit.request.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 
 import java.util.List;
 
@@ -12,5 +15,11 @@ public interface ItemRequestService {
 
     List<ItemRequestWithItemsDto> getAllRequests(long userId, int from, int size);
 
+    List<ItemRequestWithItemsDto> getRequestsAfter(long userId, PageCursor cursor, int size);
+
     ItemRequestWithItemsDto getRequestById(long userId, long requestId);
+
+    List<RequestMatchDto> getSuggestions(long userId, long requestId);
+
+    SseEmitter subscribe(long userId);
 }
@@ -2,25 +2,28 @@ package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
-import java.util.ArrayList;
-
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,6 +36,10 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final RequestMatcher requestMatcher;
+    private final RequestFeed requestFeed;
+    private final RequestStream requestStream;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public ItemRequestDto addRequest(long userId, ItemRequestDto itemRequestDto) { //добавление запроса на вещи
@@ -40,48 +47,42 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                 new NotFoundException("Отсутствует пользователь c id " + userId));
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestDto, user);
         itemRequest = itemRequestRepository.save(itemRequest);
-        return ItemRequestMapper.toItemRequestDto(itemRequest);
+        ItemRequestDto savedItemRequestDto = ItemRequestMapper.toItemRequestDto(itemRequest);
+        eventPublisher.publishEvent(new ItemRequestCreatedEvent(savedItemRequestDto, UserMapper.toUserDto(user)));
+        return savedItemRequestDto;
     }
 
     @Override
     public List<ItemRequestWithItemsDto> getAllRequestsByUser(long userId) {
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Отсутствует пользователь c id " + userId));
-
-        List<ItemRequest> requests =
-                itemRequestRepository.findAllByRequestorId(userId, Sort.by("created").descending());
-
-        List<Item> items = itemRepository.findAllByRequestIdIn(requests
-                .stream()
-                .map(ItemRequest::getId)
-                .collect(Collectors.toList()));
+        checkUserExists(userId);
 
-        return getItemRequests(requests, items);
+        return withItems(itemRequestRepository.findAllByRequestorId(userId, Sort.by("created").descending()));
     }
 
     @Override
     public List<ItemRequestWithItemsDto> getAllRequests(long userId, int from, int size) {
 
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Отсутствует пользователь c id " + userId));
+        checkUserExists(userId);
 
-        List<ItemRequest> requests =
-                itemRequestRepository.findAllByRequestorIdNot(userId,
-                        PageRequest.of(from, size, Sort.by("created").descending()));
+        return requestFeed.findPage(userId, null, (long) from * size, size)
+                .orElseGet(() -> withItems(itemRequestRepository.findAllByRequestorIdNot(userId,
+                        PageRequest.of(from, size, RequestFeed.ORDER))));
+    }
 
-        List<Item> items = itemRepository.findAllByRequestIdIn(requests
-                .stream()
-                .map(ItemRequest::getId)
-                .collect(Collectors.toList()));
+    @Override
+    public List<ItemRequestWithItemsDto> getRequestsAfter(long userId, PageCursor cursor, int size) {
 
-        return getItemRequests(requests, items);
+        checkUserExists(userId);
+
+        return requestFeed.findPage(userId, cursor, 0, size)
+                .orElseGet(() -> withItems(itemRequestRepository.findAllByRequestorIdNotAfter(userId,
+                        cursor.getTimestamp(), cursor.getId(), PageRequest.of(0, size, RequestFeed.ORDER))));
     }
 
     @Override
     public ItemRequestWithItemsDto getRequestById(long userId, long requestId) {
 
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Отсутствует пользователь c id " + userId));
+        checkUserExists(userId);
 
         ItemRequest itemRequest = itemRequestRepository.findById(requestId).orElseThrow(() ->
                 new NotFoundException("Отсутствует запрос c таким id " + requestId));
@@ -94,19 +95,36 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return ItemRequestMapper.toItemRequestWithListItemsDto(itemRequest, items);
     }
 
-    private List<ItemRequestWithItemsDto> getItemRequests(List<ItemRequest> requests, List<Item> items) {
-        List<ItemRequestWithItemsDto> itemRequestWithItemsDto = new ArrayList<>();
-        for (ItemRequest itemRequest : requests) {
-            List<Item> requestItems = items.stream()
-                    .filter(i -> i.getRequest().getId().equals(itemRequest.getId()))
-                    .collect(Collectors.toList());
-            items.removeAll(requestItems);
-            List<ItemDto> requestItemsDto = requestItems.stream()
-                    .map(ItemMapper::toItemDto)
-                    .collect(Collectors.toList());
-            itemRequestWithItemsDto.add(ItemRequestMapper.toItemRequestWithListItemsDto(itemRequest, requestItemsDto));
+    @Transactional(readOnly = true)
+    @Override
+    public List<RequestMatchDto> getSuggestions(long userId, long requestId) {
+        checkUserExists(userId);
+        if (!itemRequestRepository.existsById(requestId)) {
+            throw new NotFoundException("Отсутствует запрос c таким id " + requestId);
+        }
+        return requestMatcher.findItemsForRequest(requestId);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public SseEmitter subscribe(long userId) {
+        checkUserExists(userId);
+        return requestStream.subscribe(userId);
+    }
+
+    private List<ItemRequestWithItemsDto> withItems(List<ItemRequest> requests) {
+        List<Item> items = itemRepository.findAllByRequestIdIn(requests
+                .stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList()));
+
+        return ItemRequestMapper.toItemRequestWithListItemsDtos(requests, items);
+    }
+
+    private void checkUserExists(long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Отсутствует пользователь c id " + userId);
         }
-        return itemRequestWithItemsDto;
     }
 
 }
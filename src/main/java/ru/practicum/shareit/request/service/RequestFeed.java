@@ -0,0 +1,281 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSavedEvent;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserDeletedEvent;
+import ru.practicum.shareit.user.service.UserUpdatedEvent;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Лента последних запросов для /requests/all: до shareit.requests.feed.capacity запросов вместе с их вещами,
+ * от новых к старым (created desc, id desc). Читается из базы один раз при старте и дальше обновляется событиями.
+ * Если в базе запросов больше, чем помещается в ленту, страницы за ее концом читаются из базы.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestFeed {
+
+    public static final Sort ORDER = Sort.by(Sort.Direction.DESC, "created", "id");
+
+    private static final int LOAD_CHUNK = 1000;
+
+    private static final Comparator<PageCursor> NEWEST_FIRST = Comparator.comparing(PageCursor::getTimestamp)
+            .thenComparingLong(PageCursor::getId)
+            .reversed();
+
+    private final ItemRequestRepository itemRequestRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final NavigableMap<PageCursor, Entry> entries = new TreeMap<>(NEWEST_FIRST);
+
+    private final Map<Long, PageCursor> keys = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${shareit.requests.feed.capacity:10000}")
+    private int capacity;
+
+    // в ленте лежат все запросы из базы
+    private boolean complete;
+
+    /**
+     * Лента читается из базы уже под блокировкой записи: запрос или вещь, сохраненные во время чтения,
+     * дождутся блокировки и не потеряются при очистке.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<ItemRequest> requests;
+        boolean all;
+        lock.writeLock().lock();
+        try {
+            requests = itemRequestRepository.findFeed(PageRequest.of(0, capacity + 1, ORDER));
+            all = requests.size() <= capacity;
+            if (!all) {
+                requests = requests.subList(0, capacity);
+            }
+            Map<Long, List<ItemDto>> items = findItems(requests);
+            entries.clear();
+            keys.clear();
+            for (ItemRequest request : requests) {
+                put(new Entry(request.getId(), request.getDescription(), copyOf(request.getRequestor()),
+                        request.getCreated(), items.getOrDefault(request.getId(), List.of())));
+            }
+            complete = all;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Лента запросов построена, запросов в ленте: {}, все запросы: {}", requests.size(), all);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemRequestCreated(ItemRequestCreatedEvent event) {
+        ItemRequestDto request = event.getRequest();
+        Entry entry = new Entry(request.getId(), request.getDescription(), UserMapper.toUser(event.getRequestor()),
+                request.getCreated(), List.of());
+        lock.writeLock().lock();
+        try {
+            put(entry);
+            while (entries.size() > capacity) {
+                keys.remove(entries.pollLastEntry().getValue().id);
+                complete = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        ItemDto item = event.getItem();
+        if (item.getRequestId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            PageCursor key = keys.get(item.getRequestId());
+            if (key == null) {
+                return;
+            }
+            Entry entry = entries.get(key);
+            List<ItemDto> items = new ArrayList<>(entry.items.size() + 1);
+            boolean replaced = false;
+            for (ItemDto existing : entry.items) {
+                if (existing.getId().equals(item.getId())) {
+                    items.add(item);
+                    replaced = true;
+                } else {
+                    items.add(existing);
+                }
+            }
+            if (!replaced) {
+                items.add(item);
+            }
+            entries.put(key, entry.withItems(items));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        User requestor = UserMapper.toUser(event.getUser());
+        lock.writeLock().lock();
+        try {
+            entries.replaceAll((key, entry) -> entry.requestor != null && entry.requestor.getId().equals(requestor.getId())
+                    ? entry.withRequestor(requestor)
+                    : entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Вместе с пользователем удалены его запросы и вещи, в том числе ответы на чужие запросы.
+     * Если лента была неполной, освободившиеся места не добираются: страницы за ее концом читаются из базы.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        Set<Long> itemIds = new HashSet<>(event.getItemIds());
+        lock.writeLock().lock();
+        try {
+            for (Long requestId : event.getRequestIds()) {
+                PageCursor key = keys.remove(requestId);
+                if (key != null) {
+                    entries.remove(key);
+                }
+            }
+            if (!itemIds.isEmpty()) {
+                entries.replaceAll((key, entry) -> entry.items.stream().anyMatch(item -> itemIds.contains(item.getId()))
+                        ? entry.withItems(entry.items.stream()
+                                .filter(item -> !itemIds.contains(item.getId()))
+                                .collect(Collectors.toList()))
+                        : entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Страница чужих для userId запросов после курсора (или с начала ленты) с пропуском offset записей.
+     * Пусто, если лента неполная и закончилась раньше, чем набралась страница: тогда страницу читают из базы.
+     */
+    public Optional<List<ItemRequestWithItemsDto>> findPage(long userId, PageCursor after, long offset, int size) {
+        lock.readLock().lock();
+        try {
+            Collection<Entry> tail = after == null ? entries.values() : entries.tailMap(after, false).values();
+            List<ItemRequestWithItemsDto> page = new ArrayList<>(size);
+            long skipped = 0;
+            for (Entry entry : tail) {
+                // как и в запросе к базе, запросы без автора в ленту не попадают
+                if (entry.requestor == null || entry.requestor.getId() == userId) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                page.add(entry.toDto());
+                if (page.size() == size) {
+                    return Optional.of(page);
+                }
+            }
+            return complete ? Optional.of(page) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Entry entry) {
+        PageCursor key = new PageCursor(entry.created, entry.id);
+        PageCursor previous = keys.put(entry.id, key);
+        if (previous != null) {
+            entries.remove(previous);
+        }
+        entries.put(key, entry);
+    }
+
+    private Map<Long, List<ItemDto>> findItems(List<ItemRequest> requests) {
+        List<Long> ids = requests.stream().map(ItemRequest::getId).collect(Collectors.toList());
+        Map<Long, List<ItemDto>> items = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+            for (Item item : itemRepository.findAllByRequestIdIn(ids.subList(from, Math.min(from + LOAD_CHUNK, ids.size())))) {
+                items.computeIfAbsent(item.getRequest().getId(), id -> new ArrayList<>()).add(ItemMapper.toItemDto(item));
+            }
+        }
+        return items;
+    }
+
+    private static User copyOf(User user) {
+        return user == null ? null : new User(user.getId(), user.getName(), user.getEmail());
+    }
+
+    /**
+     * Неизменяемая запись ленты: при изменении заменяется целиком.
+     */
+    private static final class Entry {
+        private final long id;
+        private final String description;
+        private final User requestor;
+        private final LocalDateTime created;
+        private final List<ItemDto> items;
+
+        private Entry(long id, String description, User requestor, LocalDateTime created, List<ItemDto> items) {
+            this.id = id;
+            this.description = description;
+            this.requestor = requestor;
+            // в базе время хранится с точностью до микросекунд, курсоры из ленты и из базы должны совпадать
+            this.created = created.truncatedTo(ChronoUnit.MICROS);
+            this.items = items;
+        }
+
+        private Entry withItems(List<ItemDto> items) {
+            return new Entry(id, description, requestor, created, items);
+        }
+
+        private Entry withRequestor(User requestor) {
+            return new Entry(id, description, requestor, created, items);
+        }
+
+        private ItemRequestWithItemsDto toDto() {
+            return new ItemRequestWithItemsDto(id, description, requestor, created, new ArrayList<>(items));
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSavedEvent;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.service.UserDeletedEvent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Сопоставление вещей с открытыми запросами. Слова описаний запросов хранятся в обратном индексе слово -> id
+ * запросов, поэтому сохраненная вещь сравнивается только с запросами, у которых есть общие с ней слова.
+ * Новый запрос сразу сравнивается с уже существующими вещями: кандидаты по каждому его слову ищет база
+ * по триграммным индексам названия и описания, как и поиск вещей. Запрос закрывается, как только на него
+ * ответили вещью. Совпадения хранятся только в памяти и при старте пересчитываются для открытых запросов
+ * так же, как для новых, без чтения всех вещей.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestMatcher {
+
+    static final double MIN_SCORE = 0.5;
+
+    static final int MAX_MATCHES = 20;
+
+    // кандидатов по одному слову, самые новые вещи
+    static final int MAX_CANDIDATES = 500;
+
+    private static final int MIN_WORD = 3;
+
+    private static final String ENDINGS = "аеёиоуыэюяьй";
+
+    // служебные слова из типичных формулировок запросов, уже без окончаний
+    private static final Set<String> STOP_WORDS = Set.of("нужн", "нужен", "ищу", "для", "хоч", "кто", "может", "можн",
+            "есть", "пожалуйст", "котор", "чтоб", "так", "как", "или", "очен", "арендоват", "взят",
+            "the", "and", "for", "need", "want");
+
+    // у совпадений одной вещи одинаковый itemId, среди равных по оценке выше более новые запросы
+    private static final Comparator<RequestMatchDto> BY_SCORE = Comparator
+            .comparingDouble(RequestMatchDto::getScore).reversed()
+            .thenComparing(RequestMatchDto::getItemId, Comparator.reverseOrder())
+            .thenComparing(RequestMatchDto::getRequestId, Comparator.reverseOrder());
+
+    private final ItemRequestRepository itemRequestRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    private final Map<Long, OpenRequest> openRequests = new HashMap<>();
+
+    private final Map<Long, List<RequestMatchDto>> matchesByRequest = new HashMap<>();
+
+    private final Map<Long, List<RequestMatchDto>> matchesByItem = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Чтение из базы тоже идет под блокировкой: иначе запрос или вещь, сохраненные между чтением и очисткой,
+     * пропали бы из индекса.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<ItemRequestRepository.OpenRequestView> requests;
+        lock.writeLock().lock();
+        try {
+            requests = itemRequestRepository.findAllOpen();
+            postings.clear();
+            openRequests.clear();
+            matchesByRequest.clear();
+            matchesByItem.clear();
+            requests.forEach(request -> open(request.getId(), request.getDescription(), request.getRequestorId()));
+            openRequests.keySet().forEach(this::matchRequest);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс открытых запросов построен, запросов: {}, совпадений: {}", openRequests.size(),
+                matchesByItem.values().stream().mapToInt(List::size).sum());
+    }
+
+    /**
+     * Кандидаты ищутся под блокировкой, чтобы вещь, сохраненная во время поиска, не сопоставилась с запросом
+     * дважды: сама и в ответе базы.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemRequestCreated(ItemRequestCreatedEvent event) {
+        lock.writeLock().lock();
+        try {
+            long requestId = event.getRequest().getId();
+            if (open(requestId, event.getRequest().getDescription(), event.getRequestorId())) {
+                matchRequest(requestId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        ItemDto item = event.getItem();
+        Set<String> words = toWords(item.getName() + " " + item.getDescription());
+        lock.writeLock().lock();
+        try {
+            if (item.getRequestId() != null) {
+                close(item.getRequestId());
+            }
+            removeItem(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                matchItem(item.getId(), event.getOwnerId(), words);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Каскадом удалены запросы пользователя, его вещи и вещи, отвечавшие на его запросы.
+     * Из индекса убираются только они вместе со своими совпадениями, остальные совпадения сохраняются.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            event.getRequestIds().forEach(this::close);
+            event.getItemIds().forEach(this::removeItem);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<RequestMatchDto> findItemsForRequest(long requestId) {
+        return find(matchesByRequest, requestId);
+    }
+
+    public List<RequestMatchDto> findRequestsForItem(long itemId) {
+        return find(matchesByItem, itemId);
+    }
+
+    private List<RequestMatchDto> find(Map<Long, List<RequestMatchDto>> matches, long id) {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(matches.getOrDefault(id, List.of()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean open(long requestId, String description, Long requestorId) {
+        Set<String> words = toWords(description);
+        if (words.isEmpty()) {
+            return false;
+        }
+        openRequests.put(requestId, new OpenRequest(requestorId, words));
+        for (String word : words) {
+            postings.computeIfAbsent(word, w -> new HashSet<>()).add(requestId);
+        }
+        return true;
+    }
+
+    private void close(long requestId) {
+        OpenRequest request = openRequests.remove(requestId);
+        if (request == null) {
+            return;
+        }
+        unindex(postings, requestId, request.words);
+        for (RequestMatchDto match : matchesByRequest.getOrDefault(requestId, List.of())) {
+            remove(matchesByItem, match.getItemId(), match);
+        }
+        matchesByRequest.remove(requestId);
+    }
+
+    private void removeItem(long itemId) {
+        for (RequestMatchDto match : matchesByItem.getOrDefault(itemId, List.of())) {
+            remove(matchesByRequest, match.getRequestId(), match);
+        }
+        matchesByItem.remove(itemId);
+    }
+
+    /**
+     * Вещь со всеми открытыми запросами, у которых есть общие с ней слова.
+     */
+    private void matchItem(long itemId, Long ownerId, Set<String> words) {
+        Map<Long, Integer> common = new HashMap<>();
+        for (String word : words) {
+            for (Long requestId : postings.getOrDefault(word, Set.of())) {
+                common.merge(requestId, 1, Integer::sum);
+            }
+        }
+        List<RequestMatchDto> matches = new ArrayList<>();
+        common.forEach((requestId, count) ->
+                score(requestId, openRequests.get(requestId), itemId, ownerId, count, matches));
+        link(matches);
+    }
+
+    /**
+     * Запрос с доступными вещами, в названии или описании которых есть хотя бы одно его слово. Подстрока
+     * в базе находит и лишние вещи, оценка считается уже по словам кандидата. Совпадение требует не меньше
+     * половины слов запроса, поэтому любого одного слова достаточно, чтобы найти все подходящие вещи.
+     */
+    private void matchRequest(long requestId) {
+        OpenRequest request = openRequests.get(requestId);
+        Map<Long, ItemRepository.AvailableItemView> candidates = new HashMap<>();
+        for (String word : request.words) {
+            itemRepository.findAvailableContaining(word, PageRequest.of(0, MAX_CANDIDATES))
+                    .forEach(item -> candidates.putIfAbsent(item.getId(), item));
+        }
+        List<RequestMatchDto> matches = new ArrayList<>();
+        for (ItemRepository.AvailableItemView item : candidates.values()) {
+            Set<String> words = toWords(item.getName() + " " + item.getDescription());
+            words.retainAll(request.words);
+            score(requestId, request, item.getId(), item.getOwnerId(), words.size(), matches);
+        }
+        link(matches);
+    }
+
+    private static void score(long requestId, OpenRequest request, long itemId, Long ownerId, int common,
+                              List<RequestMatchDto> matches) {
+        double score = (double) common / request.words.size();
+        // свои запросы владельцу не предлагаем
+        if (!Objects.equals(request.requestorId, ownerId) && score >= MIN_SCORE) {
+            matches.add(new RequestMatchDto(requestId, itemId, score));
+        }
+    }
+
+    /**
+     * У каждого запроса и у каждой вещи остаются не больше MAX_MATCHES лучших совпадений.
+     * Вытесненное из одного списка совпадение убирается и из другого.
+     */
+    private void link(List<RequestMatchDto> matches) {
+        matches.sort(BY_SCORE);
+        for (RequestMatchDto match : matches.subList(0, Math.min(matches.size(), MAX_MATCHES))) {
+            RequestMatchDto dropped = add(matchesByRequest, match.getRequestId(), match);
+            if (dropped == match) {
+                continue;
+            }
+            if (dropped != null) {
+                remove(matchesByItem, dropped.getItemId(), dropped);
+            }
+            dropped = add(matchesByItem, match.getItemId(), match);
+            if (dropped != null) {
+                remove(matchesByRequest, dropped.getRequestId(), dropped);
+            }
+        }
+    }
+
+    /**
+     * Добавляет совпадение в список и возвращает вытесненное из него, если список переполнился.
+     */
+    private static RequestMatchDto add(Map<Long, List<RequestMatchDto>> matches, long id, RequestMatchDto match) {
+        List<RequestMatchDto> list = matches.computeIfAbsent(id, key -> new ArrayList<>());
+        list.add(match);
+        list.sort(BY_SCORE);
+        return list.size() > MAX_MATCHES ? list.remove(MAX_MATCHES) : null;
+    }
+
+    private static void remove(Map<Long, List<RequestMatchDto>> matches, long id, RequestMatchDto match) {
+        List<RequestMatchDto> list = matches.get(id);
+        if (list == null) {
+            return;
+        }
+        list.remove(match);
+        if (list.isEmpty()) {
+            matches.remove(id);
+        }
+    }
+
+    private static void unindex(Map<String, Set<Long>> index, long id, Set<String> words) {
+        for (String word : words) {
+            Set<Long> ids = index.get(word);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Слова текста без регистра и без окончаний из гласных, чтобы "дрель" и "дрели" совпадали.
+     */
+    static Set<String> toWords(String text) {
+        Set<String> words = new HashSet<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            int end = word.length();
+            while (end > MIN_WORD && ENDINGS.indexOf(word.charAt(end - 1)) >= 0) {
+                end--;
+            }
+            if (end >= MIN_WORD && !STOP_WORDS.contains(word.substring(0, end))) {
+                words.add(word.substring(0, end));
+            }
+        }
+        return words;
+    }
+
+    @RequiredArgsConstructor
+    private static final class OpenRequest {
+        private final Long requestorId;
+        private final Set<String> words;
+    }
+}
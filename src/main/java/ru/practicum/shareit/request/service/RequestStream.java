@@ -0,0 +1,318 @@
+package ru.practicum.shareit.request.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.item.service.ItemSavedEvent;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
+import ru.practicum.shareit.user.dto.UserMapper;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Поток /requests/stream (Server-Sent Events): новые запросы и вещи, добавленные в ответ на запросы.
+ * События после коммита попадают в общую очередь, из нее единственный поток-диспетчер раскладывает их
+ * по ограниченным очередям подписчиков. Отправкой в соединения занимается пул отправителей, поэтому
+ * медленный клиент не задерживает остальных. Клиент, чья очередь переполнилась, отключается: после
+ * переподключения он перечитывает /requests/all, пропущенные события не досылаются.
+ * Запись в соединение блокирующая и ограничена только таймаутом записи контейнера. Отправка дольше
+ * writeTimeout считается зависшей: подписчик сразу перестает получать события, а пул получает
+ * дополнительного отправителя на время, пока зависший поток не освободится. Так зависшие соединения
+ * не занимают отправителей, нужных остальным. Само соединение закрывается, когда запись завершится
+ * или упадет по таймауту контейнера: SseEmitter не дает закрыть его, пока идет отправка.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestStream {
+
+    public static final String REQUEST_EVENT = "request";
+
+    public static final String ITEM_EVENT = "item";
+
+    private static final Message HEARTBEAT = new Message(0, null, null, 0);
+
+    private final ObjectMapper objectMapper;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Value("${shareit.requests.stream.buffer:256}")
+    private int bufferSize;
+
+    @Value("${shareit.requests.stream.inbox:10000}")
+    private int inboxSize;
+
+    @Value("${shareit.requests.stream.senders:4}")
+    private int senderCount;
+
+    @Value("${shareit.requests.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${shareit.requests.stream.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Value("${shareit.requests.stream.write-timeout:10s}")
+    private Duration writeTimeout;
+
+    // подписчики, в чьи соединения сейчас идет запись
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+
+    private BlockingQueue<Message> inbox;
+
+    private ThreadPoolExecutor senders;
+
+    private ScheduledExecutorService watchdog;
+
+    private Thread dispatcher;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        inbox = new ArrayBlockingQueue<>(inboxSize);
+        senders = new ThreadPoolExecutor(senderCount, senderCount, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("request-stream-"));
+        watchdog = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("request-stream-watchdog-"));
+        long period = Math.max(writeTimeout.toMillis() / 2, 1);
+        watchdog.scheduleWithFixedDelay(this::detectStalled, period, period, TimeUnit.MILLISECONDS);
+        running = true;
+        dispatcher = new Thread(this::dispatch, "request-stream-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        watchdog.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    public SseEmitter subscribe(long userId) {
+        return register(userId, new SseEmitter(timeout.toMillis()));
+    }
+
+    public SseEmitter register(long userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.info("Пользователь с id {} подписался на поток запросов, подписчиков: {}", userId, subscribers.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemRequestCreated(ItemRequestCreatedEvent event) {
+        ItemRequestDto request = event.getRequest();
+        publish(REQUEST_EVENT, new ItemRequestWithItemsDto(request.getId(), request.getDescription(),
+                UserMapper.toUser(event.getRequestor()), request.getCreated(), List.of()), event.getRequestorId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemSaved(ItemSavedEvent event) {
+        if (!event.isCreated() || event.getItem().getRequestId() == null) {
+            return;
+        }
+        publish(ITEM_EVENT, event.getItem(), event.getOwnerId());
+    }
+
+    /**
+     * Событие сериализуется один раз для всех подписчиков. Автору события оно не отправляется.
+     */
+    private void publish(String name, Object data, long authorId) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            log.error("Не удалось сериализовать событие {}", name, e);
+            return;
+        }
+        if (!inbox.offer(new Message(sequence.incrementAndGet(), name, json, authorId))) {
+            log.warn("Очередь потока запросов переполнена, событие {} пропущено", name);
+        }
+    }
+
+    private void dispatch() {
+        while (running) {
+            Message message;
+            try {
+                message = inbox.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // без событий подписчикам уходит комментарий, чтобы прокси не закрывали соединение и обрывы находились
+            Message toSend = message == null ? HEARTBEAT : message;
+            for (Subscriber subscriber : subscribers) {
+                if (message == null || subscriber.userId != message.authorId) {
+                    subscriber.offer(toSend);
+                }
+            }
+        }
+    }
+
+    /**
+     * Зависший подписчик отключается от событий, а вместо занятого им потока в пул добавляется новый.
+     */
+    private void detectStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : sending) {
+            Write write = subscriber.write;
+            if (write != null && now - write.started > writeTimeout.toNanos() && markStalled(subscriber, write)) {
+                log.warn("Отправка пользователю с id {} зависла, подписчик отключается", subscriber.userId);
+                subscriber.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Пометка зависшей записи и ее завершение идут под одной блокировкой, поэтому дополнительный
+     * отправитель убирается ровно один раз и только после того, как был добавлен.
+     */
+    private synchronized boolean markStalled(Subscriber subscriber, Write write) {
+        if (subscriber.write != write || write.stalled) {
+            return false;
+        }
+        write.stalled = true;
+        senders.setMaximumPoolSize(senders.getMaximumPoolSize() + 1);
+        senders.setCorePoolSize(senders.getCorePoolSize() + 1);
+        return true;
+    }
+
+    private synchronized void finishWrite(Subscriber subscriber, Write write) {
+        subscriber.write = null;
+        if (write.stalled) {
+            senders.setCorePoolSize(senders.getCorePoolSize() - 1);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() - 1);
+        }
+    }
+
+    private static final class Write {
+        private final long started = System.nanoTime();
+        private boolean stalled;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Message {
+        private final long id;
+        private final String name;
+        private final String json;
+        private final long authorId;
+
+        private SseEmitter.SseEventBuilder toEvent() {
+            if (name == null) {
+                return SseEmitter.event().comment("ping");
+            }
+            return SseEmitter.event().id(String.valueOf(id)).name(name).data(json, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    private final class Subscriber {
+        private final long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+        // текущая запись в соединение
+        private volatile Write write;
+
+        private Subscriber(long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Вызывается только диспетчером и никогда не блокируется.
+         */
+        private void offer(Message message) {
+            if (!queue.offer(message)) {
+                log.warn("Пользователь с id {} не успевает читать поток запросов, соединение закрывается", userId);
+                disconnect();
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        /**
+         * Новые события подписчику больше не раскладываются. Соединение закроет его отправитель,
+         * не дожидаясь остальных событий в очереди.
+         */
+        private void disconnect() {
+            subscribers.remove(this);
+            overflowed = true;
+            queue.clear();
+        }
+
+        /**
+         * В каждый момент очередь подписчика разбирает не больше одного отправителя.
+         */
+        private void drain() {
+            do {
+                Message message;
+                while (!overflowed && (message = queue.poll()) != null) {
+                    if (!send(message)) {
+                        return;
+                    }
+                }
+                if (overflowed) {
+                    emitter.complete();
+                    return;
+                }
+                draining.set(false);
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private boolean send(Message message) {
+            Write current = new Write();
+            write = current;
+            sending.add(this);
+            try {
+                emitter.send(message.toEvent());
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // клиент отключился или соединение уже закрыто по таймауту
+                subscribers.remove(this);
+                return false;
+            } finally {
+                sending.remove(this);
+                // поток освободился, дополнительный отправитель больше не нужен
+                finishWrite(this, current);
+            }
+        }
+    }
+}
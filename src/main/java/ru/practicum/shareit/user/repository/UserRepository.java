@@ -1,7 +1,33 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
+
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // не "users": так называется регион кэша второго уровня Hibernate для User
+    String CACHE_NAME = "userExists";
+
+    /**
+     * Проверка пользователя из заголовка X-Sharer-User-Id. Кэшируются только найденные пользователи,
+     * запись сбрасывается после коммита удаления пользователя (UserCacheEvictor).
+     */
+    @Override
+    @Cacheable(cacheNames = CACHE_NAME, unless = "!#result")
+    boolean existsById(Long id);
+
+    /**
+     * Все пользователи для выгрузки. Строки читаются курсором по fetch size и не попадают в кэш второго уровня.
+     */
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAll();
 }
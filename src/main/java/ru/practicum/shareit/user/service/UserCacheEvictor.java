@@ -0,0 +1,34 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Сбрасывает кэши после коммита удаления пользователя. Сброс до коммита не помогает: параллельное чтение
+ * еще видит пользователя в базе и кладет его в кэш снова.
+ * Вещи и запросы удалены каскадом в базе, мимо Hibernate, поэтому их записи в регионах второго уровня
+ * и закэшированные результаты запросов (findAllByRequestId) сбрасываются здесь же.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @CacheEvict(cacheNames = UserRepository.CACHE_NAME, key = "#event.userId")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        event.getItemIds().forEach(id -> cache.evictEntityData(Item.class, id));
+        event.getRequestIds().forEach(id -> cache.evictEntityData(ItemRequest.class, id));
+        cache.evictQueryRegions();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Пользователь удален вместе со своими запросами, вещами и бронированиями (каскадом в базе).
+ * Каскадом удалены и чужие вещи, добавленные в ответ на его запросы: они тоже перечислены в itemIds.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class UserDeletedEvent {
+    private final long userId;
+    private final List<Long> itemIds;
+    private final List<Long> requestIds;
+}
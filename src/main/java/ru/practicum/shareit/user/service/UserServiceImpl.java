@@ -2,8 +2,11 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
@@ -23,6 +26,12 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
 
+    private final ItemRepository itemRepository;
+
+    private final ItemRequestRepository itemRequestRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
     public UserDto createUser(UserDto userDto) {
         User user = UserMapper.toUser(userDto);
@@ -42,7 +51,9 @@ public class UserServiceImpl implements UserService {
         if (userDto.getEmail() != null && !userDto.getEmail().isEmpty()) {
             user.setEmail(userDto.getEmail());
         }
-        return UserMapper.toUserDto(userRepository.save(user));
+        UserDto savedUserDto = UserMapper.toUserDto(userRepository.save(user));
+        eventPublisher.publishEvent(new UserUpdatedEvent(savedUserDto));
+        return savedUserDto;
     }
 
     @Transactional(readOnly = true)
@@ -62,6 +73,10 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void deleteUser(long id) {
+        // после удаления каскадом в базе эти id уже не найти, а индексам в памяти они нужны
+        List<Long> itemIds = itemRepository.findIdsDeletedWithUser(id);
+        List<Long> requestIds = itemRequestRepository.findIdsByRequestorId(id);
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserDeletedEvent(id, itemIds, requestIds));
     }
 }
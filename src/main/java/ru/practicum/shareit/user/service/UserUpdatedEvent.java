@@ -0,0 +1,13 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.practicum.shareit.user.dto.UserDto;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class UserUpdatedEvent {
+    private final UserDto user;
+}
@@ -0,0 +1,6 @@
+-- Скрипты data-* выполняются после schema.sql, когда таблица ITEMS уже пересоздана: schema-postgresql.sql
+-- запускался бы раньше schema.sql, и DROP TABLE ... CASCADE из schema.sql удалял бы эти индексы.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_NAME_TRGM ON ITEMS USING gin (upper(NAME) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_DESCRIPTION_TRGM ON ITEMS USING gin (upper(DESCRIPTION) gin_trgm_ops);
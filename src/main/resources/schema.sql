@@ -1,7 +1,9 @@
 DROP TABLE IF EXISTS USERS CASCADE;
+DROP SEQUENCE IF EXISTS USERS_SEQ;
+CREATE SEQUENCE IF NOT EXISTS USERS_SEQ START WITH 1 INCREMENT BY 50;
 create table IF NOT EXISTS USERS
 (
-    id    BIGINT        NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+    id    BIGINT        NOT NULL,
     name  VARCHAR(255)  NOT NULL,
     email VARCHAR(512)  NOT NULL,
     CONSTRAINT pk_user PRIMARY KEY (id),
@@ -9,9 +11,11 @@ create table IF NOT EXISTS USERS
 );
 
 DROP TABLE IF EXISTS REQUESTS CASCADE;
+DROP SEQUENCE IF EXISTS REQUESTS_SEQ;
+CREATE SEQUENCE IF NOT EXISTS REQUESTS_SEQ START WITH 1 INCREMENT BY 50;
 create table IF NOT EXISTS REQUESTS
 (
-    ID           BIGINT                                    NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+    ID           BIGINT                                    NOT NULL,
     DESCRIPTION  VARCHAR                                   NOT NULL,
     REQUESTOR_ID BIGINT,
     CREATED      TIMESTAMP WITHOUT TIME ZONE DEFAULT NOW() NOT NULL,
@@ -19,38 +23,57 @@ create table IF NOT EXISTS REQUESTS
     CONSTRAINT FK_REQUEST_USER FOREIGN KEY (REQUESTOR_ID) references USERS (ID) on delete cascade
 );
 
+CREATE INDEX IF NOT EXISTS IDX_REQUESTS_REQUESTOR_CREATED ON REQUESTS (REQUESTOR_ID, CREATED);
+CREATE INDEX IF NOT EXISTS IDX_REQUESTS_CREATED ON REQUESTS (CREATED);
+
 DROP TABLE IF EXISTS ITEMS CASCADE;
+DROP SEQUENCE IF EXISTS ITEMS_SEQ;
+CREATE SEQUENCE IF NOT EXISTS ITEMS_SEQ START WITH 1 INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS ITEMS
 (
-    ID          BIGINT       NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+    ID          BIGINT       NOT NULL,
     NAME        VARCHAR(255) NOT NULL,
     DESCRIPTION VARCHAR      NOT NULL,
     AVAILABLE   BOOLEAN,
     OWNER_ID    BIGINT       NOT NULL,
     REQUEST_ID  BIGINT,
+    VERSION     BIGINT       NOT NULL DEFAULT 0,
     CONSTRAINT PK_ITEM PRIMARY KEY(ID),
     CONSTRAINT FK_ITEM_USERS FOREIGN KEY (OWNER_ID) references USERS (ID) on delete cascade,
     CONSTRAINT FK_ITEM_REQUESTS FOREIGN KEY (REQUEST_ID) references REQUESTS (ID) on delete cascade
 );
 
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_OWNER ON ITEMS (OWNER_ID, ID);
+CREATE INDEX IF NOT EXISTS IDX_ITEMS_REQUEST ON ITEMS (REQUEST_ID);
+
 DROP TABLE IF EXISTS BOOKINGS CASCADE;
+DROP SEQUENCE IF EXISTS BOOKINGS_SEQ;
+CREATE SEQUENCE IF NOT EXISTS BOOKINGS_SEQ START WITH 1 INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS BOOKINGS
 (
-    ID         BIGINT                      NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+    ID         BIGINT                      NOT NULL,
     START_DATE TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     END_DATE   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     ITEM_ID    BIGINT                      NOT NULL,
     BOOKER_ID  BIGINT                      NOT NULL,
     STATUS     VARCHAR                     NOT NULL,
+    VERSION    BIGINT                      NOT NULL DEFAULT 0,
     CONSTRAINT PK_BOOKING PRIMARY KEY(ID),
     CONSTRAINT FK_BOOKING_ITEM FOREIGN KEY (ITEM_ID) references ITEMS (ID) on delete cascade,
     CONSTRAINT FK_BOOKING_USER FOREIGN KEY (BOOKER_ID) references USERS (ID) on delete cascade
 );
 
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_START ON BOOKINGS (BOOKER_ID, START_DATE);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_BOOKER_STATUS ON BOOKINGS (BOOKER_ID, STATUS, START_DATE);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_START ON BOOKINGS (ITEM_ID, START_DATE);
+CREATE INDEX IF NOT EXISTS IDX_BOOKINGS_ITEM_STATUS ON BOOKINGS (ITEM_ID, STATUS, START_DATE);
+
 DROP TABLE IF EXISTS COMMENTS CASCADE;
+DROP SEQUENCE IF EXISTS COMMENTS_SEQ;
+CREATE SEQUENCE IF NOT EXISTS COMMENTS_SEQ START WITH 1 INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS COMMENTS
 (
-    ID        BIGINT                      NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+    ID        BIGINT                      NOT NULL,
     TEXT      VARCHAR                     NOT NULL,
     ITEM_ID   BIGINT                      NOT NULL,
     AUTHOR_ID BIGINT                      NOT NULL,
@@ -59,3 +82,5 @@ CREATE TABLE IF NOT EXISTS COMMENTS
     CONSTRAINT FK_COMMENT_ITEM FOREIGN KEY (ITEM_ID) references ITEMS (ID) on delete cascade,
     CONSTRAINT FK_COMMENT_USER FOREIGN KEY (AUTHOR_ID) references USERS (ID) on delete cascade
 );
+
+CREATE INDEX IF NOT EXISTS IDX_COMMENTS_ITEM ON COMMENTS (ITEM_ID);
@@ -0,0 +1,260 @@
+package ru.practicum.shareit;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingSpecifications;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Планы запросов репозиториев на схеме из schema.sql: ни один из них не должен читать таблицу целиком.
+ * Проверяется SQL, который Hibernate на самом деле отправил в базу при вызове метода репозитория,
+ * вместе с привязанными параметрами. Поиск по тексту (LIKE '%...%'), выборка чужих запросов (REQUESTOR_ID <> ?)
+ * и разовые выборки при старте и удалении пользователя здесь не проверяются.
+ */
+@DataJpaTest
+public class QueryPlanTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                Arguments.of("bookings by booker",
+                        bookings(BookingSpecifications.byBooker(1L), State.ALL, null)),
+                Arguments.of("bookings by booker, past",
+                        bookings(BookingSpecifications.byBooker(1L), State.PAST, null)),
+                Arguments.of("bookings by booker, future",
+                        bookings(BookingSpecifications.byBooker(1L), State.FUTURE, null)),
+                Arguments.of("bookings by booker and status",
+                        bookings(BookingSpecifications.byBooker(1L), State.WAITING, null)),
+                Arguments.of("bookings by booker, keyset",
+                        bookings(BookingSpecifications.byBooker(1L), State.ALL, new PageCursor(NOW, 100L))),
+                Arguments.of("bookings by owner",
+                        bookings(BookingSpecifications.byItemOwner(1L), State.ALL, null)),
+                Arguments.of("bookings by owner and status",
+                        bookings(BookingSpecifications.byItemOwner(1L), State.WAITING, null)),
+                Arguments.of("booking by id and owner",
+                        (RepositoryCall) test -> test.bookingRepository.findByIdAndOwnerId(1L, 1L)),
+                Arguments.of("finished bookings of booker for item",
+                        (RepositoryCall) test -> test.bookingRepository
+                                .findByBookerIdAndItemIdAndStatusEqualsAndEndIsBefore(1L, 1L, Status.APPROVED, NOW)),
+                Arguments.of("approved bookings of item",
+                        (RepositoryCall) test -> test.bookingRepository.findByItemIdAndStatus(1L, Status.APPROVED)),
+                Arguments.of("approved bookings of items",
+                        (RepositoryCall) test -> test.bookingRepository
+                                .findByItemIdInAndStatus(List.of(1L, 2L), Status.APPROVED)),
+                Arguments.of("overlapping approved bookings of item",
+                        (RepositoryCall) test -> test.bookingRepository
+                                .countOverlapping(1L, Status.APPROVED, NOW, NOW.plusDays(1), 1L)),
+                Arguments.of("item locked for approval",
+                        (RepositoryCall) test -> test.itemRepository.lockById(1L)),
+                Arguments.of("last and next approved bookings of items",
+                        (RepositoryCall) test -> test.bookingRepository
+                                .findLastAndNextApprovedByItemIdIn(List.of(1L, 2L), NOW)),
+                Arguments.of("items by owner",
+                        (RepositoryCall) test -> test.itemRepository
+                                .findAllByOwnerId(1L, PageRequest.of(0, 10, Sort.by("id")))),
+                Arguments.of("items by request",
+                        (RepositoryCall) test -> test.itemRepository.findAllByRequestId(1L)),
+                Arguments.of("items by requests",
+                        (RepositoryCall) test -> test.itemRepository.findAllByRequestIdIn(List.of(1L, 2L))),
+                Arguments.of("comments by item",
+                        (RepositoryCall) test -> test.commentRepository.findAllByItemId(1L)),
+                Arguments.of("comments by items",
+                        (RepositoryCall) test -> test.commentRepository.findByItemIdIn(List.of(1L, 2L))),
+                Arguments.of("requests by requestor",
+                        (RepositoryCall) test -> test.itemRequestRepository
+                                .findAllByRequestorId(1L, Sort.by(Sort.Direction.DESC, "created"))));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        RecordingDataSource.STATEMENTS.clear();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    public void queryUsesIndexTest(String name, RepositoryCall call) {
+        call.execute(this);
+        List<RecordedStatement> statements = new ArrayList<>(RecordingDataSource.STATEMENTS);
+
+        assertFalse(statements.isEmpty(), name + ": запрос не дошел до базы");
+        for (RecordedStatement statement : statements) {
+            String plan = explain(statement);
+            assertFalse(plan.contains("tableScan"), name + ":\n" + statement.sql + "\n" + plan);
+        }
+    }
+
+    private static RepositoryCall bookings(Specification<Booking> byUser, State state, PageCursor cursor) {
+        // та же спецификация, что собирает BookingServiceImpl
+        Specification<Booking> spec = Specification.where(byUser).and(BookingSpecifications.inState(state, NOW));
+        Specification<Booking> page = cursor == null ? spec : spec.and(BookingSpecifications.after(state, cursor));
+        return test -> test.bookingRepository.findPage(page, BookingSpecifications.sortFor(state), 0, 10);
+    }
+
+    private String explain(RecordedStatement statement) {
+        return em.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("explain " + statement.sql)) {
+                statement.bind(explain);
+                try (ResultSet plan = explain.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    interface RepositoryCall {
+        void execute(QueryPlanTest test);
+    }
+
+    /**
+     * Текст подготовленного запроса и вызовы setXxx, которыми к нему привязали параметры.
+     */
+    private static final class RecordedStatement {
+        private final String sql;
+        private final Map<Integer, Object[]> parameters = new TreeMap<>();
+        private final Map<Integer, Method> setters = new TreeMap<>();
+
+        private RecordedStatement(String sql) {
+            this.sql = sql;
+        }
+
+        private void record(Method setter, Object[] args) {
+            parameters.put((Integer) args[0], args);
+            setters.put((Integer) args[0], setter);
+        }
+
+        private void bind(PreparedStatement statement) throws SQLException {
+            for (Map.Entry<Integer, Method> setter : setters.entrySet()) {
+                invoke(setter.getValue(), statement, parameters.get(setter.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Источник данных, запоминающий выполненные подготовленные запросы.
+     */
+    private static final class RecordingDataSource extends DelegatingDataSource {
+
+        private static final List<RecordedStatement> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        private RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recording(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recording(super.getConnection(username, password));
+        }
+
+        private static Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        Object result = invoke(method, connection, args);
+                        if (method.getName().equals("prepareStatement") && !((String) args[0]).startsWith("explain")) {
+                            return recording((PreparedStatement) result, new RecordedStatement((String) args[0]));
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement recording(PreparedStatement statement, RecordedStatement recorded) {
+            return (PreparedStatement) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("set") && args != null && args.length >= 2
+                                && args[0] instanceof Integer) {
+                            recorded.record(method, args);
+                        } else if (method.getName().equals("executeQuery")) {
+                            STATEMENTS.add(recorded);
+                        }
+                        return invoke(method, statement, args);
+                    });
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TestConfiguration
+    static class Recording {
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? new RecordingDataSource((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.retry.annotation.RetryConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.interceptor.BeanFactoryTransactionAttributeSourceAdvisor;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingSavedEvent;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemBookingAndCommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemSavedEvent;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Настоящие конфликты версий: пока первая транзакция еще не закоммичена, ту же строку в другом потоке
+ * меняет и коммитит вторая. Транзакции настоящие, созданные пользователи удаляются после каждого теста.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class VersionConflictIntegrationTest {
+
+    private final MockMvc mvc;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final RetryConfiguration retryAdvisor;
+    private final BeanFactoryTransactionAttributeSourceAdvisor transactionAdvisor;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        ConcurrentChange.ON_SAVE.set(null);
+        userIds.forEach(userService::deleteUser);
+    }
+
+    @Test
+    void retryRunsOutsideTransaction() {
+        assertTrue(retryAdvisor.getOrder() < transactionAdvisor.getOrder());
+    }
+
+    @Test
+    void conflictingItemUpdateRetriedWithFreshItem() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        ConcurrentChange.ON_SAVE.set(() -> itemService.updateItem(ownerId, itemId,
+                ItemDto.builder().description("Дрель с набором сверл").build()));
+
+        mvc.perform(patch("/items/{itemId}", itemId)
+                        .header("X-Sharer-User-Id", ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Ударная дрель\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Ударная дрель"))
+                .andExpect(jsonPath("$.description").value("Дрель с набором сверл"));
+
+        ItemBookingAndCommentDto item = itemService.getItemById(itemId, ownerId);
+        assertEquals("Ударная дрель", item.getName());
+        assertEquals("Дрель с набором сверл", item.getDescription());
+    }
+
+    @Test
+    void conflictingBookingDecisionReturnsConflict() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long bookingId = bookingService.addBooking(BookingRequestDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(start.plusDays(1))
+                .build(), createUser()).getId();
+        ConcurrentChange.ON_SAVE.set(() -> bookingService.approveBooking(ownerId, bookingId, true));
+
+        mvc.perform(patch("/bookings/{bookingId}", bookingId)
+                        .header("X-Sharer-User-Id", ownerId)
+                        .param("approved", "false"))
+                .andExpect(status().isConflict());
+
+        assertEquals(Status.APPROVED, bookingService.getBookingById(ownerId, bookingId).getStatus());
+    }
+
+    private long createUser() {
+        long id = userService.createUser(UserDto.builder()
+                .name("user")
+                .email(UUID.randomUUID() + "@user.com")
+                .build()).getId();
+        userIds.add(id);
+        return id;
+    }
+
+    private long createItem(long ownerId) {
+        return itemService.addItem(ownerId, ItemDto.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .build()).getId();
+    }
+
+    /**
+     * Слушатели вызываются синхронно внутри транзакции, еще до сброса изменений в базу. Изменение
+     * из ON_SAVE выполняется один раз, в другом потоке и в своей транзакции.
+     */
+    @TestConfiguration
+    static class ConcurrentChange {
+
+        static final AtomicReference<Runnable> ON_SAVE = new AtomicReference<>();
+
+        @EventListener
+        public void onItemSaved(ItemSavedEvent event) {
+            changeConcurrently();
+        }
+
+        @EventListener
+        public void onBookingSaved(BookingSavedEvent event) {
+            changeConcurrently();
+        }
+
+        private static void changeConcurrently() {
+            Runnable change = ON_SAVE.getAndSet(null);
+            if (change != null) {
+                CompletableFuture.runAsync(change).orTimeout(10, TimeUnit.SECONDS).join();
+            }
+        }
+    }
+}
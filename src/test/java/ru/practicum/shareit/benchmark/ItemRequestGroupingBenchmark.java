@@ -0,0 +1,99 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Раскладка вещей по запросам для ленты /requests/all. Время на операцию для нового варианта должно
+ * расти линейно по числу запросов и вещей, для прежнего фильтра по каждому запросу — как их произведение.
+ * Запуск: main этого класса из IDE или mvn test-compile и java -cp с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemRequestGroupingBenchmark {
+
+    private static final int ITEMS_PER_REQUEST = 4;
+
+    @Param({"100", "1000", "10000"})
+    private int requestCount;
+
+    private List<ItemRequest> requests;
+
+    private List<Item> items;
+
+    @Setup
+    public void setUp() {
+        User user = new User(1L, "user", "user@user.com");
+        Random random = new Random(42);
+        requests = new ArrayList<>(requestCount);
+        for (long id = 1; id <= requestCount; id++) {
+            requests.add(new ItemRequest(id, "Нужна вещь " + id, user, LocalDateTime.now()));
+        }
+        items = new ArrayList<>(requestCount * ITEMS_PER_REQUEST);
+        for (long id = 1; id <= (long) requestCount * ITEMS_PER_REQUEST; id++) {
+            ItemRequest request = random.nextInt(10) == 0 ? null : requests.get(random.nextInt(requestCount));
+            items.add(new Item(id, "Вещь " + id, "Описание", true, user, request, 0L));
+        }
+    }
+
+    @Benchmark
+    public List<ItemRequestWithItemsDto> singlePass() {
+        return ItemRequestMapper.toItemRequestWithListItemsDtos(requests, items);
+    }
+
+    /**
+     * Прежний вариант: фильтр всего списка вещей на каждый запрос и удаление найденных из ArrayList.
+     */
+    @Benchmark
+    public List<ItemRequestWithItemsDto> filterPerRequest() {
+        List<Item> remaining = new ArrayList<>(items);
+        List<ItemRequestWithItemsDto> result = new ArrayList<>();
+        for (ItemRequest itemRequest : requests) {
+            List<Item> requestItems = remaining.stream()
+                    .filter(i -> i.getRequest() != null && i.getRequest().getId().equals(itemRequest.getId()))
+                    .collect(Collectors.toList());
+            remaining.removeAll(requestItems);
+            List<ItemDto> requestItemsDto = requestItems.stream()
+                    .map(ItemMapper::toItemDto)
+                    .collect(Collectors.toList());
+            result.add(ItemRequestMapper.toItemRequestWithListItemsDto(itemRequest, requestItemsDto));
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemRequestGroupingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запросы с вещами: свои запросы пользователя (из базы, вещи раскладываются по запросам за один проход)
+ * и страница чужих запросов /requests/all, которая отдается из ленты в памяти.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemRequestServiceBenchmark {
+
+    private static final int SIZE = 20;
+
+    @Benchmark
+    public List<ItemRequestWithItemsDto> getAllRequestsByUser(ShareItState state) {
+        return state.getBean(ItemRequestService.class).getAllRequestsByUser(state.randomUserId());
+    }
+
+    @Benchmark
+    public List<ItemRequestWithItemsDto> getAllRequests(ShareItState state) {
+        return state.getBean(ItemRequestService.class).getAllRequests(state.randomUserId(), 0, SIZE);
+    }
+}
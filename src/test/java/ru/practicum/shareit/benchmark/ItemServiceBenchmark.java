@@ -0,0 +1,48 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemBookingAndCommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Список вещей владельца с бронированиями и комментариями и поиск вещей: запросом LIKE к базе
+ * (ItemRepository.search) и через сервис, который в профиле test ищет по индексу в памяти.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemServiceBenchmark {
+
+    private static final int SIZE = 20;
+
+    @Benchmark
+    public List<ItemBookingAndCommentDto> getAllItemsByUser(ShareItState state) {
+        return state.getBean(ItemService.class).getAllItemsByUser(state.randomUserId(), 0, SIZE);
+    }
+
+    @Benchmark
+    public List<Item> repositorySearch(ShareItState state) {
+        return state.getBean(ItemRepository.class)
+                .search(state.randomWord(), PageRequest.of(0, SIZE));
+    }
+
+    @Benchmark
+    public List<ItemDto> serviceSearch(ShareItState state) {
+        return state.getBean(ItemService.class).searchItem(state.randomWord(), 0, SIZE);
+    }
+}
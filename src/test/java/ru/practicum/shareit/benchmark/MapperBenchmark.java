@@ -0,0 +1,104 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Мапперы на сущностях из базы: связи, которые читают мапперы, загружены заранее, поэтому в замер
+ * попадает только преобразование в DTO. Время — на страницу из PAGE сущностей.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int PAGE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Entities {
+        private List<Item> items;
+        private List<Booking> bookings;
+        private List<Comment> comments;
+
+        @Setup(Level.Trial)
+        public void load(ShareItState state) {
+            EntityManager em = state.getBean(EntityManagerFactory.class).createEntityManager();
+            try {
+                items = em.createQuery("select i from Item i order by i.id", Item.class)
+                        .setMaxResults(PAGE)
+                        .getResultList();
+                bookings = em.createQuery("select b from Booking b join fetch b.item order by b.id", Booking.class)
+                        .setMaxResults(PAGE)
+                        .getResultList();
+                comments = em.createQuery("select c from Comment c join fetch c.author order by c.id", Comment.class)
+                        .setMaxResults(PAGE)
+                        .getResultList();
+            } finally {
+                em.close();
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ItemDto> itemToItemDto(Entities entities) {
+        List<ItemDto> result = new ArrayList<>(entities.items.size());
+        for (Item item : entities.items) {
+            result.add(ItemMapper.toItemDto(item));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookingToResponseDto(Entities entities) {
+        List<BookingResponseDto> result = new ArrayList<>(entities.bookings.size());
+        for (Booking booking : entities.bookings) {
+            result.add(BookingMapper.toBookingResponseDto(booking));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<BookingItemDto> bookingToItemDto(Entities entities) {
+        List<BookingItemDto> result = new ArrayList<>(entities.bookings.size());
+        for (Booking booking : entities.bookings) {
+            result.add(BookingMapper.toBookingItemDto(booking));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<CommentDto> commentToCommentDto(Entities entities) {
+        List<CommentDto> result = new ArrayList<>(entities.comments.size());
+        for (Comment comment : entities.comments) {
+            result.add(CommentMapper.toCommentDto(comment));
+        }
+        return result;
+    }
+}
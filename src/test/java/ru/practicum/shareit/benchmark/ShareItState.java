@@ -0,0 +1,67 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.load.DatasetGenerator;
+import ru.practicum.shareit.load.LocalShareIt;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Приложение на H2 (профиль test) с синтетическими данными, общее для всех методов бенчмарка.
+ * Размеры данных меняются параметрами JMH, например -p users=10000 -p bookings=200000.
+ * Популярность вещей распределена по Zipf, как в нагрузочном прогоне (см. DatasetGenerator).
+ */
+@State(Scope.Benchmark)
+public class ShareItState {
+
+    private static final long SEED = 42;
+
+    private static final double SKEW = 1.1;
+
+    @Param("1000")
+    private int users;
+
+    @Param("2000")
+    private int requests;
+
+    @Param("5000")
+    private int items;
+
+    @Param("20000")
+    private int bookings;
+
+    @Param("10000")
+    private int comments;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        DatasetGenerator generator = new DatasetGenerator(users, requests, items, bookings, comments, SEED, SKEW);
+        context = LocalShareIt.start(WebApplicationType.NONE, generator);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public long randomUserId() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    public String randomWord() {
+        return DatasetGenerator.word(ThreadLocalRandom.current());
+    }
+}
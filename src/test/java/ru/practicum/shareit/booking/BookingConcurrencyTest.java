@@ -0,0 +1,166 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.ValidateException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Параллельные подтверждения бронирований. Транзакции здесь настоящие, поэтому созданные
+ * пользователи удаляются после каждого теста, остальные данные удаляются каскадом.
+ */
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private final BookingService bookingService;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final DataSource dataSource;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        userIds.forEach(userService::deleteUser);
+    }
+
+    @Test
+    void onlyOneOfOverlappingBookingsApproved() throws Exception {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            // каждое следующее бронирование сдвинуто на час и пересекается с предыдущим
+            bookingIds.add(bookingService.addBooking(makeBookingRequestDto(itemId, start.plusHours(i),
+                    start.plusHours(i).plusDays(1)), createUser()).getId());
+        }
+
+        List<Callable<Boolean>> approvals = new ArrayList<>();
+        for (long bookingId : bookingIds) {
+            approvals.add(() -> bookingService.approveBooking(ownerId, bookingId, true).getStatus() == Status.APPROVED);
+        }
+        List<Boolean> results = runConcurrently(approvals);
+
+        assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+        assertEquals(1, bookingService.getAllBookingsByOwner(ownerId, State.ALL, 0, THREADS).stream()
+                .filter(booking -> booking.getStatus() == Status.APPROVED)
+                .count());
+    }
+
+    /**
+     * Подтверждение другого экземпляра приложения попадает только в базу, таймлайн в памяти о нем не знает.
+     */
+    @Test
+    void bookingApprovedByAnotherInstanceRejected() {
+        long ownerId = createUser();
+        long itemId = createItem(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long first = bookingService.addBooking(makeBookingRequestDto(itemId, start, start.plusDays(2)),
+                createUser()).getId();
+        long second = bookingService.addBooking(makeBookingRequestDto(itemId, start.plusDays(1), start.plusDays(3)),
+                createUser()).getId();
+
+        new JdbcTemplate(dataSource).update("update BOOKINGS set STATUS = 'APPROVED' where ID = ?", first);
+
+        assertThrows(ValidateException.class, () -> bookingService.approveBooking(ownerId, second, true));
+    }
+
+    @Test
+    void bookingsOfDifferentItemsApprovedConcurrently() throws Exception {
+        long ownerId = createUser();
+        long bookerId = createUser();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Callable<Boolean>> approvals = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long bookingId = bookingService.addBooking(makeBookingRequestDto(createItem(ownerId), start,
+                    start.plusDays(1)), bookerId).getId();
+            approvals.add(() -> bookingService.approveBooking(ownerId, bookingId, true).getStatus() == Status.APPROVED);
+        }
+
+        List<Boolean> results = runConcurrently(approvals);
+
+        assertTrue(results.stream().allMatch(Boolean::booleanValue));
+    }
+
+    private List<Boolean> runConcurrently(List<Callable<Boolean>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Callable<Boolean> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    try {
+                        return task.call();
+                    } catch (ValidateException e) {
+                        return false;
+                    }
+                }));
+            }
+            startGate.countDown();
+            List<Boolean> results = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long createUser() {
+        UserDto userDto = new UserDto();
+        userDto.setName("user");
+        userDto.setEmail(UUID.randomUUID() + "@user.com");
+        long id = userService.createUser(userDto).getId();
+        userIds.add(id);
+        return id;
+    }
+
+    private long createItem(long ownerId) {
+        return itemService.addItem(ownerId, ItemDto.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .build()).getId();
+    }
+
+    private BookingRequestDto makeBookingRequestDto(long itemId, LocalDateTime start, LocalDateTime end) {
+        return BookingRequestDto.builder()
+                .start(start)
+                .end(end)
+                .itemId(itemId)
+                .build();
+    }
+}
@@ -17,16 +17,22 @@ import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.BadRequestStateException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.model.User;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static ru.practicum.shareit.booking.model.State.ALL;
@@ -50,9 +56,9 @@ public class BookingControllerTest {
     public void setUp() {
         User user = new User(1L, "Masha", "userOne@user.com");
         User owner = new User(2L, "Kay", "owner@user.com");
-        Item item = new Item(1L, "itemName", "itemDescription", true, user,null);
+        Item item = new Item(1L, "itemName", "itemDescription", true, user,null, 0L);
         Booking booking = new Booking(1L, LocalDateTime.now().plusDays(10), LocalDateTime.now().plusDays(15),
-                item, user, Status.WAITING);
+                item, user, Status.WAITING, 0L);
         bookingRequestDto = BookingMapper.bookingRequestDto(booking);
         bookingResponseDto = BookingMapper.toBookingResponseDto(booking);
     }
@@ -72,6 +78,50 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(bookingResponseDto.getStatus().toString()), String.class));
     }
 
+    @Test
+    public void addBookingsTest() throws Exception {
+        when(bookingService.addBookings(anyList(), anyLong())).thenReturn(List.of(bookingResponseDto));
+
+        mvc.perform(post("/bookings/bulk")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(mapper.writeValueAsString(List.of(bookingRequestDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(bookingResponseDto.getId()), Long.class));
+    }
+
+    @Test
+    public void addBookingsTooManyTest() throws Exception {
+        List<BookingRequestDto> requests = Collections.nCopies(5001, bookingRequestDto);
+
+        mvc.perform(post("/bookings/bulk")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(mapper.writeValueAsString(requests))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("addBookings.bookingRequestDtos")));
+        verify(bookingService, never()).addBookings(anyList(), anyLong());
+    }
+
+    @Test
+    public void addBookingsWithInvalidBookingTest() throws Exception {
+        bookingRequestDto.setItemId(null);
+
+        mvc.perform(post("/bookings/bulk")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(mapper.writeValueAsString(List.of(bookingRequestDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("itemId")));
+        verify(bookingService, never()).addBookings(anyList(), anyLong());
+    }
+
     @Test
     public void updateBookingTest() throws Exception {
         bookingResponseDto.setStatus(Status.APPROVED);
@@ -161,4 +211,29 @@ public class BookingControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error", is("Unknown state: UNSUPPORTED_STATUS")));
     }
+
+    @Test
+    public void getBookingsByUserWithCursorTest() throws Exception {
+        PageCursor cursor = new PageCursor(bookingResponseDto.getStart().plusDays(1), 7L);
+        when(bookingService.getBookingsByUserAfter(1L, ALL, cursor, 1)).thenReturn(List.of(bookingResponseDto));
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("size", "1")
+                        .param("cursor", cursor.encode())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(bookingResponseDto.getId()), Long.class))
+                .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER,
+                        new PageCursor(bookingResponseDto.getStart(), bookingResponseDto.getId()).encode()));
+    }
+
+    @Test
+    public void getBookingsByUserWithBadCursorTest() throws Exception {
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("cursor", "not-a-cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -25,9 +25,9 @@ public class BookingMapperTest {
     @BeforeEach
     public void setUp() {
         user = new User(1L, "Katya", "katya@user.com");
-        item = new Item(1L, "itemNameOne", "itemDescriptionOne", true, user, null);
+        item = new Item(1L, "itemNameOne", "itemDescriptionOne", true, user, null, 0L);
         booking = new Booking(1L, LocalDateTime.now().minusDays(10),
-                LocalDateTime.now().minusDays(5), item, user, Status.APPROVED);
+                LocalDateTime.now().minusDays(5), item, user, Status.APPROVED, 0L);
         bookingRequestDto = new BookingRequestDto(1L, LocalDateTime.now().minusDays(10),
                 LocalDateTime.now().minusDays(5), item.getId());
     }
@@ -39,8 +39,9 @@ public class BookingMapperTest {
         assertEquals(responseDto.getId(), booking.getId());
         assertEquals(responseDto.getStart(), booking.getStart());
         assertEquals(responseDto.getEnd(), booking.getEnd());
-        assertEquals(responseDto.getItem(), booking.getItem());
-        assertEquals(responseDto.getBooker(), booking.getBooker());
+        assertEquals(responseDto.getItem().getId(), booking.getItem().getId());
+        assertEquals(responseDto.getItem().getName(), booking.getItem().getName());
+        assertEquals(responseDto.getBooker().getId(), booking.getBooker().getId());
         assertEquals(responseDto.getStatus(), booking.getStatus());
     }
 
@@ -5,7 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -18,6 +21,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 public class BookingRepositoryTest {
@@ -45,10 +49,10 @@ public class BookingRepositoryTest {
 
         userBooker = userRepository.save(new User(2L, "Oleg", "olegkot@user.com"));
 
-        item = itemRepository.save(new Item(1L, "Sofa", "New", true, userOwner, null));
+        item = itemRepository.save(new Item(1L, "Sofa", "New", true, userOwner, null, 0L));
 
         booking = bookingRepository.save(new Booking(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(3),
-                item, userBooker, Status.WAITING));
+                item, userBooker, Status.WAITING, 0L));
     }
 
     @Test
@@ -75,4 +79,64 @@ public class BookingRepositoryTest {
         assertNotNull(booking1);
         assertEquals(booking1, booking);
     }
+
+    @Test
+    public void findLastAndNextApprovedByItemIdInTest() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking last = bookingRepository.save(new Booking(null, now.minusDays(5), now.minusDays(4),
+                item, userBooker, Status.APPROVED, 0L));
+        bookingRepository.save(new Booking(null, now.minusDays(10), now.minusDays(9),
+                item, userBooker, Status.APPROVED, 0L));
+        bookingRepository.save(new Booking(null, now.minusDays(2), now.minusDays(1),
+                item, userBooker, Status.REJECTED, 0L));
+        Booking next = bookingRepository.save(new Booking(null, now.plusDays(5), now.plusDays(6),
+                item, userBooker, Status.APPROVED, 0L));
+        bookingRepository.save(new Booking(null, now.plusDays(8), now.plusDays(9),
+                item, userBooker, Status.APPROVED, 0L));
+
+        List<Booking> bookings = bookingRepository.findLastAndNextApprovedByItemIdIn(List.of(item.getId()), now);
+
+        assertEquals(2, bookings.size());
+        assertTrue(bookings.stream().anyMatch(b -> b.getId().equals(last.getId())));
+        assertTrue(bookings.stream().anyMatch(b -> b.getId().equals(next.getId())));
+    }
+
+    @Test
+    public void findPageByOwnerTest() {
+        Booking later = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(5),
+                LocalDateTime.now().plusDays(6), item, userBooker, Status.APPROVED, 0L));
+
+        List<BookingResponseDto> page = bookingRepository.findPage(BookingSpecifications.byItemOwner(userOwner.getId()),
+                BookingSpecifications.sortFor(State.ALL), 0, 10);
+
+        assertEquals(2, page.size());
+        assertEquals(later.getId(), page.get(0).getId());
+        assertEquals(booking.getId(), page.get(1).getId());
+        assertEquals(item.getName(), page.get(1).getItem().getName());
+        assertEquals(userBooker.getId(), page.get(1).getBooker().getId());
+    }
+
+    @Test
+    public void findPageByStateTest() {
+        LocalDateTime now = LocalDateTime.now();
+        bookingRepository.save(new Booking(null, now.minusDays(5), now.minusDays(4), item, userBooker,
+                Status.APPROVED, 0L));
+        bookingRepository.save(new Booking(null, now.minusDays(1), now.plusDays(1), item, userBooker,
+                Status.APPROVED, 0L));
+        bookingRepository.save(new Booking(null, now.plusDays(5), now.plusDays(6), item, userBooker,
+                Status.REJECTED, 0L));
+
+        assertEquals(4, countByBooker(State.ALL, now));
+        assertEquals(1, countByBooker(State.PAST, now));
+        assertEquals(1, countByBooker(State.CURRENT, now));
+        assertEquals(2, countByBooker(State.FUTURE, now));
+        assertEquals(1, countByBooker(State.WAITING, now));
+        assertEquals(1, countByBooker(State.REJECTED, now));
+    }
+
+    private int countByBooker(State state, LocalDateTime now) {
+        return bookingRepository.findPage(Specification.where(BookingSpecifications.byBooker(userBooker.getId()))
+                        .and(BookingSpecifications.inState(state, now)),
+                BookingSpecifications.sortFor(state), 0, 10).size();
+    }
 }
@@ -25,15 +25,16 @@ public class BookingResponseDtoTest {
                 1L,
                 LocalDateTime.parse("2023-07-12T15:00:00"),
                 LocalDateTime.parse("2023-07-22T15:00:00"),
-                null, null, Status.APPROVED);
+                2L, "Sofa", 3L, Status.APPROVED);
 
         JsonContent<BookingResponseDto> result = json.write(bookingResponseDto);
 
         assertThat(result).extractingJsonPathNumberValue("$.id").isEqualTo(1);
         assertThat(result).extractingJsonPathStringValue("$.start").isEqualTo("2023-07-12T15:00:00");
         assertThat(result).extractingJsonPathStringValue("$.end").isEqualTo("2023-07-22T15:00:00");
-        assertThat(result).extractingJsonPathValue("$.item").isEqualTo(null);
-        assertThat(result).extractingJsonPathValue("$.booker").isEqualTo(null);
+        assertThat(result).extractingJsonPathNumberValue("$.item.id").isEqualTo(2);
+        assertThat(result).extractingJsonPathStringValue("$.item.name").isEqualTo("Sofa");
+        assertThat(result).extractingJsonPathNumberValue("$.booker.id").isEqualTo(3);
         assertThat(result).extractingJsonPathValue("$.status").isEqualTo(Status.APPROVED.toString());
     }
 }
@@ -6,31 +6,40 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingSavedEvent;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.BookingTimeline;
 import ru.practicum.shareit.exception.BadRequestStateException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidateException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.PageCursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -46,6 +55,12 @@ public class BookingServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private BookingTimeline bookingTimeline;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -63,20 +78,20 @@ public class BookingServiceImplTest {
         userOwner = new User(1L, "userOne", "userOne@user.com");
         userBooker = new User(2L, "userTwoBooker", "userTwo@user.com");
         user3 = new User(3L, "user3", "user3@user.com");
-        item = new Item(1L, "itemNameOne", "itemDescriptionOne", true, userOwner, null);
+        item = new Item(1L, "itemNameOne", "itemDescriptionOne", true, userOwner, null, 0L);
         booking = new Booking(1L,
                 LocalDateTime.now().minusDays(10),
                 LocalDateTime.now().plusDays(10),
                 item,
                 userBooker,
-                Status.WAITING);
+                Status.WAITING, 0L);
 
         booking2 = new Booking(2L,
                 LocalDateTime.now().minusMinutes(10),
                 LocalDateTime.now().plusMinutes(10),
                 item,
                 userBooker,
-                Status.WAITING);
+                Status.WAITING, 0L);
 
         bookingRequest = new BookingRequestDto(1L,
                 LocalDateTime.now().minusDays(10),
@@ -89,6 +104,7 @@ public class BookingServiceImplTest {
 
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(userBooker));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingTimeline.isFree(anyLong(), any(), any())).thenReturn(true);
         when(bookingRepository.save(any())).thenReturn(booking);
 
         BookingResponseDto bookingResponseDto = BookingMapper.toBookingResponseDto(booking);
@@ -98,6 +114,8 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDto.getId(), bookingResponseDto1.getId());
         assertEquals(bookingResponseDto.getStart(), bookingResponseDto1.getStart());
         assertEquals(bookingResponseDto.getEnd(), bookingResponseDto1.getEnd());
+        verify(eventPublisher).publishEvent(argThat((BookingSavedEvent event) -> event.getBookingId() == 1L
+                && event.getBookerId() == userBooker.getId() && event.getOwnerId() == userOwner.getId()));
 
     }
 
@@ -141,6 +159,19 @@ public class BookingServiceImplTest {
         assertEquals("Вещь не доступна для бронирования", e.getMessage());
     }
 
+    @Test
+    public void addBooking_WhenIntervalTakenTest() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(userBooker));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingTimeline.isFree(anyLong(), any(), any())).thenReturn(false);
+
+        ValidateException e = assertThrows(ValidateException.class,
+                () -> bookingService.addBooking(bookingRequest, userBooker.getId()));
+
+        assertEquals("Вещь уже забронирована на это время", e.getMessage());
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     public void addBooking_WhenUserNotFoundTest() {
         BookingRequestDto newRequest = BookingMapper.bookingRequestDto(booking2);
@@ -154,6 +185,42 @@ public class BookingServiceImplTest {
         assertEquals("Не найден пользователь с id " + userId, e.getMessage());
     }
 
+    @Test
+    public void addBookingsTest() {
+        BookingRequestDto secondRequest = new BookingRequestDto(null,
+                LocalDateTime.now().plusDays(11),
+                LocalDateTime.now().plusDays(12),
+                1L);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(userBooker));
+        when(itemRepository.findAllById(Set.of(1L))).thenReturn(List.of(item));
+        when(bookingTimeline.isFree(anyLong(), any(), any())).thenReturn(true);
+        when(bookingRepository.saveAll(anyList())).thenReturn(List.of(booking, booking2));
+
+        List<BookingResponseDto> result = bookingService.addBookings(List.of(bookingRequest, secondRequest),
+                userBooker.getId());
+
+        assertEquals(List.of(1L, 2L), result.stream().map(BookingResponseDto::getId).collect(Collectors.toList()));
+        verify(itemRepository, times(1)).findAllById(any());
+        verify(bookingRepository, never()).save(any());
+        verify(eventPublisher, times(2)).publishEvent(any(BookingSavedEvent.class));
+    }
+
+    @Test
+    public void addBookings_WhenItemNotFoundTest() {
+        BookingRequestDto unknownItem = new BookingRequestDto(null,
+                LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2),
+                99L);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(userBooker));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+
+        NotFoundException e = assertThrows(NotFoundException.class,
+                () -> bookingService.addBookings(List.of(unknownItem, bookingRequest), userBooker.getId()));
+
+        assertEquals("Не найден предмет с id 99", e.getMessage());
+        verify(bookingRepository, never()).saveAll(any());
+    }
+
     @Test
     public void approveBookingTest() {
         when(bookingRepository.findByIdAndOwnerId(anyLong(), anyLong())).thenReturn(booking);
@@ -168,6 +235,19 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDto.getStart(), bookingResponseDto1.getStart());
         assertEquals(bookingResponseDto.getEnd(), bookingResponseDto1.getEnd());
         assertEquals(Status.APPROVED, bookingResponseDto1.getStatus());
+        verify(eventPublisher).publishEvent(any(BookingSavedEvent.class));
+    }
+
+    @Test
+    public void approveBooking_WhenApprovedInDatabaseTest() {
+        when(bookingRepository.findByIdAndOwnerId(anyLong(), anyLong())).thenReturn(booking);
+        when(bookingRepository.countOverlapping(booking.getItem().getId(), Status.APPROVED, booking.getStart(),
+                booking.getEnd(), booking.getId())).thenReturn(1L);
+
+        assertThrows(ValidateException.class,
+                () -> bookingService.approveBooking(userBooker.getId(), bookingRequest.getId(), true));
+        verify(itemRepository).lockById(booking.getItem().getId());
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
@@ -208,7 +288,7 @@ public class BookingServiceImplTest {
 
     @Test
     public void getBookingByIdTest() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(userBooker));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.ofNullable(booking));
 
         BookingResponseDto bookingResponseDto = bookingService.getBookingById(userBooker.getId(), booking.getId());
@@ -221,7 +301,7 @@ public class BookingServiceImplTest {
         long ownerId = userOwner.getId();
         long bookingId = booking.getId();
 
-        when(userRepository.findById(ownerId)).thenReturn(Optional.of(userOwner));
+        when(userRepository.existsById(ownerId)).thenReturn(true);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         BookingResponseDto bookingResponseDto = bookingService.getBookingById(ownerId, bookingId);
@@ -235,7 +315,7 @@ public class BookingServiceImplTest {
         long bookerId = userBooker.getId();
         long bookingId = booking.getId();
 
-        when(userRepository.findById(bookerId)).thenReturn(Optional.of(userOwner));
+        when(userRepository.existsById(bookerId)).thenReturn(true);
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         BookingResponseDto bookingResponseDto = bookingService.getBookingById(bookerId, bookingId);
@@ -247,7 +327,7 @@ public class BookingServiceImplTest {
     @Test
     public void getBookingById_WhenUserNotFoundTest() {
         long userId = 999L;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         NotFoundException e = assertThrows(
                 NotFoundException.class,
@@ -258,7 +338,7 @@ public class BookingServiceImplTest {
     @Test
     public void getBookingById_WhenBookingNotFoundTest() {
         long bookingId = 5L;
-        when(userRepository.findById(user3.getId())).thenReturn(Optional.ofNullable(user3));
+        when(userRepository.existsById(user3.getId())).thenReturn(true);
         when(bookingRepository.findById(bookingId))
                 .thenThrow(new NotFoundException("Не найдено бронирование с id " + bookingId));
 
@@ -269,7 +349,7 @@ public class BookingServiceImplTest {
 
     @Test
     public void getBookingById_WhenUserNotBookerOrOwnerTest() {
-        when(userRepository.findById(user3.getId())).thenReturn(Optional.of(user3));
+        when(userRepository.existsById(user3.getId())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.ofNullable(booking));
 
         NotFoundException e = assertThrows(NotFoundException.class,
@@ -284,9 +364,8 @@ public class BookingServiceImplTest {
         long userId = userBooker.getId();
         int from = 0;
         int size = 1;
-        PageRequest pageRequest = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "start"));
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(userBooker));
+        when(userRepository.existsById(userId)).thenReturn(true);
 
         //Unknown state
         BadRequestStateException e = assertThrows(
@@ -295,67 +374,29 @@ public class BookingServiceImplTest {
         );
         assertEquals("UNSUPPORTED_STATUS", e.getMessage());
 
-        //State All
-        when(bookingRepository.findByBookerId(userId, pageRequest)).thenReturn(List.of(booking));
-        List<BookingResponseDto> bookingResponseDtos = bookingService.getAllBookingByUserId(userId,
-                State.ALL, from, size);
+        when(bookingRepository.findPage(any(), any(), eq(0), eq(size)))
+                .thenReturn(List.of(BookingMapper.toBookingResponseDto(booking)));
 
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
+        for (State state : List.of(State.ALL, State.PAST, State.CURRENT, State.FUTURE, State.WAITING,
+                State.REJECTED)) {
+            List<BookingResponseDto> bookingResponseDtos = bookingService.getAllBookingByUserId(userId, state,
+                    from, size);
 
-        //State Past
-        booking.setEnd(LocalDateTime.now().minusDays(7));
-        when(bookingRepository.findByBookerIdAndEndIsBefore(anyLong(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking));
-        bookingResponseDtos = bookingService.getAllBookingByUserId(userId, State.PAST, from, size);
-
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
-
-        //State Current
-        when(bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfter(anyLong(), any(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking2));
-
-        bookingResponseDtos = bookingService.getAllBookingByUserId(userId, State.CURRENT, from, size);
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
-
-        //State Future
-        booking2.setStart(LocalDateTime.now().plusMinutes(2));
-        when(bookingRepository.findByBookerIdAndStartIsAfter(anyLong(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking2));
-
-        bookingResponseDtos = bookingService.getAllBookingByUserId(userId, State.FUTURE, from, size);
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
-
-        //Status Waiting
-        when(bookingRepository.findByBookerIdAndStatus(anyLong(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking));
-
-        bookingResponseDtos = bookingService.getAllBookingByUserId(userId, State.WAITING, from, size);
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
-
-        //Status Rejected
-        booking2.setStatus(Status.REJECTED);
-
-        when(bookingRepository.findByBookerIdAndStatus(anyLong(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking2));
-
-        bookingResponseDtos = bookingService.getAllBookingByUserId(userId, State.REJECTED, from, size);
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
+            assertEquals(1, bookingResponseDtos.size());
+        }
+        // CURRENT сортируется по id, остальные состояния по времени начала
+        verify(bookingRepository, times(5)).findPage(any(), eq(BookingSpecifications.sortFor(State.ALL)), eq(0),
+                eq(size));
+        verify(bookingRepository).findPage(any(), eq(BookingSpecifications.sortFor(State.CURRENT)), eq(0), eq(size));
     }
 
     @Test
     public void getBookingsByOwnerTest() {
         long userId = userOwner.getId();
-        int from = 0;
-        int size = 1;
-        PageRequest pageRequest = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "start"));
+        int from = 4;
+        int size = 2;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(userOwner));
+        when(userRepository.existsById(userId)).thenReturn(true);
 
         //Unknown state
         BadRequestStateException e = assertThrows(
@@ -364,56 +405,60 @@ public class BookingServiceImplTest {
         );
         assertEquals("UNSUPPORTED_STATUS", e.getMessage());
 
-        //State All
-        when(bookingRepository.findByItemOwnerId(userId, pageRequest)).thenReturn(List.of(booking));
-        List<BookingResponseDto> bookingResponseDtos = bookingService.getAllBookingsByOwner(userId,
-                State.ALL, from, size);
-
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
-
-        //State Past
-        booking.setEnd(LocalDateTime.now().minusDays(7));
-        when(bookingRepository.findByItemOwnerIdAndEndIsBefore(anyLong(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking));
-        bookingResponseDtos = bookingService.getAllBookingsByOwner(userId, State.PAST, from, size);
+        when(bookingRepository.findPage(any(), any(), eq(4), eq(size)))
+                .thenReturn(List.of(BookingMapper.toBookingResponseDto(booking),
+                        BookingMapper.toBookingResponseDto(booking2)));
+
+        for (State state : List.of(State.ALL, State.PAST, State.CURRENT, State.FUTURE, State.WAITING,
+                State.REJECTED)) {
+            List<BookingResponseDto> bookingResponseDtos = bookingService.getAllBookingsByOwner(userId, state,
+                    from, size);
+
+            assertEquals(2, bookingResponseDtos.size());
+        }
+        // CURRENT сортируется по id, остальные состояния по времени начала
+        verify(bookingRepository, times(5)).findPage(any(), eq(BookingSpecifications.sortFor(State.ALL)), eq(4),
+                eq(size));
+        verify(bookingRepository).findPage(any(), eq(BookingSpecifications.sortFor(State.CURRENT)), eq(4), eq(size));
+    }
 
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
+    @Test
+    public void getBookingsByUserAfterTest() {
+        long userId = userBooker.getId();
+        PageCursor cursor = new PageCursor(LocalDateTime.now(), 5L);
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(bookingRepository.findPage(any(), eq(BookingSpecifications.sortFor(State.FUTURE)), eq(0), eq(2)))
+                .thenReturn(List.of(BookingMapper.toBookingResponseDto(booking2)));
 
-        //State Current
-        when(bookingRepository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfter(anyLong(), any(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking2));
+        List<BookingResponseDto> bookingResponseDtos = bookingService.getBookingsByUserAfter(userId, State.FUTURE,
+                cursor, 2);
 
-        bookingResponseDtos = bookingService.getAllBookingsByOwner(userId, State.CURRENT, from, size);
-        assertNotNull(bookingResponseDtos);
         assertEquals(1, bookingResponseDtos.size());
+        assertEquals(booking2.getId(), bookingResponseDtos.get(0).getId());
+    }
 
-        //State Future
-        booking2.setStart(LocalDateTime.now().plusMinutes(2));
-        when(bookingRepository.findByItemOwnerIdAndStartIsAfter(anyLong(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking2));
-
-        bookingResponseDtos = bookingService.getAllBookingsByOwner(userId, State.FUTURE, from, size);
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
+    @Test
+    public void getBookingsByOwnerAfterTest() {
+        long ownerId = userOwner.getId();
+        PageCursor cursor = new PageCursor(LocalDateTime.now(), 5L);
+        when(userRepository.existsById(ownerId)).thenReturn(true);
+        when(bookingRepository.findPage(any(Specification.class), any(Sort.class), anyInt(), anyInt()))
+                .thenReturn(List.of(BookingMapper.toBookingResponseDto(booking),
+                        BookingMapper.toBookingResponseDto(booking2)));
 
-        //Status Waiting
-        when(bookingRepository.findByItemOwnerIdAndStatus(anyLong(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking));
+        List<BookingResponseDto> bookingResponseDtos = bookingService.getBookingsByOwnerAfter(ownerId, State.ALL,
+                cursor, 2);
 
-        bookingResponseDtos = bookingService.getAllBookingsByOwner(userId, State.WAITING, from, size);
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
+        assertEquals(2, bookingResponseDtos.size());
+    }
 
-        //Status Rejected
-        booking2.setStatus(Status.REJECTED);
-        when(bookingRepository.findByItemOwnerIdAndStatus(anyLong(), any(), (Pageable) any()))
-                .thenReturn(List.of(booking2));
+    @Test
+    public void getBookingsByUserAfter_WhenStateUnsupportedTest() {
+        long userId = userBooker.getId();
+        PageCursor cursor = new PageCursor(LocalDateTime.now(), 5L);
+        when(userRepository.existsById(userId)).thenReturn(true);
 
-        bookingResponseDtos = bookingService.getAllBookingsByOwner(userId, State.REJECTED, from, size);
-        assertNotNull(bookingResponseDtos);
-        assertEquals(1, bookingResponseDtos.size());
+        assertThrows(BadRequestStateException.class,
+                () -> bookingService.getBookingsByUserAfter(userId, State.UNSUPPORTED_STATUS, cursor, 2));
     }
 }
-
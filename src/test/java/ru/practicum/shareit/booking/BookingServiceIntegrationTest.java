@@ -4,8 +4,10 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.StatementCounter;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
@@ -16,8 +18,11 @@ import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -32,6 +37,8 @@ public class BookingServiceIntegrationTest {
     private final BookingService bookingService;
     private final UserService userService;
     private final ItemService itemService;
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
 
     @Test
     void getAllByOwnerAndState() {
@@ -58,6 +65,74 @@ public class BookingServiceIntegrationTest {
         assertThat(getBookingResponseDto, hasSize(1));
     }
 
+    @Test
+    void listingsUseBoundedNumberOfStatements() {
+        UserDto owner = userService.createUser(UserMapper.toUserDto(makeUser("Masha", "masha@user.com")));
+        UserDto booker = userService.createUser(UserMapper.toUserDto(makeUser("Petya", "petya@user.com")));
+        for (int i = 0; i < 10; i++) {
+            ItemDto itemDto = itemService.addItem(owner.getId(),
+                    ItemMapper.toItemDto(makeItem("Item" + i, "Description", null)));
+            bookingService.addBooking(makeBookingRequestDto(LocalDateTime.now().plusDays(i + 1),
+                    LocalDateTime.now().plusDays(i + 2), itemDto.getId()), booker.getId());
+        }
+        em.flush();
+        em.clear();
+
+        StatementCounter counter = new StatementCounter(emf);
+        for (State state : List.of(ALL, State.FUTURE, State.WAITING)) {
+            // проверка пользователя и сама выборка, без отдельных запросов на каждую вещь
+            assertThat(counter.count(() -> assertThat(
+                    bookingService.getAllBookingsByOwner(owner.getId(), state, 0, 10), hasSize(10))),
+                    lessThanOrEqualTo(2L));
+            assertThat(counter.count(() -> assertThat(
+                    bookingService.getAllBookingByUserId(booker.getId(), state, 0, 10), hasSize(10))),
+                    lessThanOrEqualTo(2L));
+        }
+    }
+
+    @Test
+    void addBookingsAssignsIdsFromSequence() {
+        UserDto owner = userService.createUser(UserMapper.toUserDto(makeUser("Olya", "olya@user.com")));
+        UserDto booker = userService.createUser(UserMapper.toUserDto(makeUser("Kolya", "kolya@user.com")));
+        ItemDto itemDto = itemService.addItem(owner.getId(),
+                ItemMapper.toItemDto(makeItem("Drill", "Description", null)));
+        List<BookingRequestDto> requests = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            requests.add(makeBookingRequestDto(LocalDateTime.now().plusDays(i + 1),
+                    LocalDateTime.now().plusDays(i + 1).plusHours(1), itemDto.getId()));
+        }
+
+        List<BookingResponseDto> saved = bookingService.addBookings(requests, booker.getId());
+        em.flush();
+        em.clear();
+
+        // больше одного блока идентификаторов: второй блок берется из последовательности без пересечений
+        assertThat(saved.stream().map(BookingResponseDto::getId).distinct().count(), is(60L));
+        assertThat(bookingService.getAllBookingByUserId(booker.getId(), ALL, 0, 100), hasSize(60));
+    }
+
+    @Test
+    void addBookingsUsesBoundedNumberOfStatements() {
+        UserDto owner = userService.createUser(UserMapper.toUserDto(makeUser("Sveta", "sveta@user.com")));
+        UserDto booker = userService.createUser(UserMapper.toUserDto(makeUser("Tolya", "tolya@user.com")));
+        List<BookingRequestDto> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ItemDto itemDto = itemService.addItem(owner.getId(),
+                    ItemMapper.toItemDto(makeItem("Item" + i, "Description", null)));
+            requests.add(makeBookingRequestDto(LocalDateTime.now().plusDays(1),
+                    LocalDateTime.now().plusDays(2), itemDto.getId()));
+        }
+        em.flush();
+        em.clear();
+
+        // пользователь, вещи, таймлайны всех вещей, идентификаторы и вставка пачкой — не по запросу на вещь
+        StatementCounter counter = new StatementCounter(emf);
+        assertThat(counter.count(() -> {
+            assertThat(bookingService.addBookings(requests, booker.getId()), hasSize(20));
+            em.flush();
+        }), lessThanOrEqualTo(6L));
+    }
+
     private BookingRequestDto makeBookingRequestDto(LocalDateTime start,
                                                     LocalDateTime end,
                                                     long itemId) {
@@ -0,0 +1,257 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingTimeline;
+import ru.practicum.shareit.exception.ValidateException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserDeletedEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingTimelineTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BookingTimeline bookingTimeline;
+
+    private User booker;
+    private Item item;
+    private LocalDateTime now;
+    private Booking past;
+    private Booking future;
+
+    @BeforeEach
+    public void setUp() {
+        User owner = new User(1L, "owner", "owner@user.com");
+        booker = new User(2L, "booker", "booker@user.com");
+        item = new Item(1L, "item", "description", true, owner, null, 0L);
+        now = LocalDateTime.now();
+        past = new Booking(1L, now.minusDays(5), now.minusDays(3), item, booker, Status.APPROVED, 0L);
+        future = new Booking(2L, now.plusDays(3), now.plusDays(5), item, booker, Status.APPROVED, 0L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void findLastAndNextTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of(future, past));
+
+        BookingItemDto last = bookingTimeline.findLast(item.getId(), now);
+        BookingItemDto next = bookingTimeline.findNext(item.getId(), now);
+
+        assertEquals(past.getId(), last.getId());
+        assertEquals(future.getId(), next.getId());
+        assertEquals(booker.getId(), next.getBookerId());
+    }
+
+    @Test
+    public void timelineLoadedOnceTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of(past));
+
+        bookingTimeline.findLast(item.getId(), now);
+        assertNull(bookingTimeline.findNext(item.getId(), now));
+
+        verify(bookingRepository, times(1)).findByItemIdAndStatus(item.getId(), Status.APPROVED);
+    }
+
+    @Test
+    public void preloadReadsAllItemsInOneQueryTest() {
+        Item other = new Item(2L, "other", "description", true, item.getOwner(), null, 0L);
+        when(bookingRepository.findByItemIdInAndStatus(Set.of(item.getId(), other.getId()), Status.APPROVED))
+                .thenReturn(List.of(future));
+
+        bookingTimeline.preload(List.of(item.getId(), other.getId()));
+
+        assertFalse(bookingTimeline.isFree(item.getId(), now.plusDays(4), now.plusDays(6)));
+        assertTrue(bookingTimeline.isFree(other.getId(), now.plusDays(4), now.plusDays(6)));
+        bookingTimeline.preload(List.of(item.getId(), other.getId()));
+        verify(bookingRepository, times(1)).findByItemIdInAndStatus(any(), any());
+        verify(bookingRepository, never()).findByItemIdAndStatus(any(), any());
+    }
+
+    @Test
+    public void preloadDiscardedAfterConcurrentChangeTest() {
+        when(bookingRepository.findByItemIdInAndStatus(Set.of(item.getId()), Status.APPROVED)).thenAnswer(invocation -> {
+            // пользователь удален, пока читались бронирования: прочитанное могло устареть
+            bookingTimeline.onUserDeleted(new UserDeletedEvent(booker.getId(), List.of(), List.of()));
+            return List.of(future);
+        });
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of());
+
+        bookingTimeline.preload(List.of(item.getId()));
+
+        assertTrue(bookingTimeline.isFree(item.getId(), now.plusDays(4), now.plusDays(6)));
+        verify(bookingRepository, times(1)).findByItemIdAndStatus(item.getId(), Status.APPROVED);
+    }
+
+    @Test
+    public void timelineReloadedAfterUserDeletedTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED))
+                .thenReturn(List.of(past, future), List.of(past));
+
+        assertEquals(future.getId(), bookingTimeline.findNext(item.getId(), now).getId());
+        bookingTimeline.onUserDeleted(new UserDeletedEvent(booker.getId(), List.of(), List.of()));
+
+        assertNull(bookingTimeline.findNext(item.getId(), now));
+        verify(bookingRepository, times(2)).findByItemIdAndStatus(item.getId(), Status.APPROVED);
+    }
+
+    @Test
+    public void reserveApprovedBookingTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of(past));
+
+        bookingTimeline.reserve(future);
+
+        assertEquals(future.getId(), bookingTimeline.findNext(item.getId(), now).getId());
+    }
+
+    @Test
+    public void reservedBookingVisibleAfterCommitTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of(past));
+        TransactionSynchronizationManager.initSynchronization();
+
+        bookingTimeline.reserve(future);
+
+        assertNull(bookingTimeline.findNext(item.getId(), now));
+        assertFalse(bookingTimeline.isFree(item.getId(), now.plusDays(4), now.plusDays(6)));
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(future.getId(), bookingTimeline.findNext(item.getId(), now).getId());
+        assertFalse(bookingTimeline.isFree(item.getId(), now.plusDays(4), now.plusDays(6)));
+    }
+
+    /**
+     * Загрузка таймлайна прочитала базу до коммита подтверждения и закончилась уже после него.
+     */
+    @Test
+    public void reservedBookingNotLostByConcurrentLoadTest() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED))
+                .thenReturn(List.of(past))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of(past);
+                })
+                .thenReturn(List.of(past, future));
+        TransactionSynchronizationManager.initSynchronization();
+        bookingTimeline.reserve(future);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        bookingTimeline.onUserDeleted(new UserDeletedEvent(booker.getId(), List.of(), List.of()));
+
+        Thread reader = new Thread(() -> bookingTimeline.findNext(item.getId(), now));
+        reader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread committer = new Thread(() -> {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                    TransactionSynchronization.STATUS_COMMITTED);
+        });
+        committer.start();
+        // коммит доходит до таймлайна, пока загрузка еще идет
+        while (committer.isAlive() && committer.getState() == Thread.State.RUNNABLE) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        reader.join(5000);
+        committer.join(5000);
+
+        assertEquals(future.getId(), bookingTimeline.findNext(item.getId(), now).getId());
+        assertFalse(bookingTimeline.isFree(item.getId(), now.plusDays(4), now.plusDays(6)));
+    }
+
+    @Test
+    public void reservedBookingReleasedOnRollbackTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of(past));
+        TransactionSynchronizationManager.initSynchronization();
+
+        bookingTimeline.reserve(future);
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNull(bookingTimeline.findNext(item.getId(), now));
+        assertTrue(bookingTimeline.isFree(item.getId(), now.plusDays(4), now.plusDays(6)));
+    }
+
+    @Test
+    public void reserveNotApprovedBookingTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of(past));
+        bookingTimeline.findNext(item.getId(), now);
+
+        future.setStatus(Status.REJECTED);
+        bookingTimeline.reserve(future);
+
+        assertNull(bookingTimeline.findNext(item.getId(), now));
+    }
+
+    @Test
+    public void reserveOverlappingBookingTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of(past, future));
+        Booking overlapping = new Booking(3L, now.plusDays(4), now.plusDays(7), item, booker, Status.APPROVED, 0L);
+
+        assertThrows(ValidateException.class, () -> bookingTimeline.reserve(overlapping));
+        assertEquals(future.getId(), bookingTimeline.findNext(item.getId(), now).getId());
+    }
+
+    @Test
+    public void reserveAlreadyLoadedBookingTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of(past, future));
+
+        bookingTimeline.reserve(future);
+
+        assertEquals(future.getId(), bookingTimeline.findNext(item.getId(), now).getId());
+    }
+
+    @Test
+    public void isFreeTest() {
+        when(bookingRepository.findByItemIdAndStatus(item.getId(), Status.APPROVED)).thenReturn(List.of(past, future));
+
+        assertTrue(bookingTimeline.isFree(item.getId(), now.minusDays(3), now.plusDays(3)));
+        assertFalse(bookingTimeline.isFree(item.getId(), now.minusDays(4), now));
+        assertFalse(bookingTimeline.isFree(item.getId(), now, now.plusDays(4)));
+        assertFalse(bookingTimeline.isFree(item.getId(), now.minusDays(10), now.plusDays(10)));
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+}
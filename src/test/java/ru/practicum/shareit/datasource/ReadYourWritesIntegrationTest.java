@@ -0,0 +1,154 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.RequiredArgsConstructor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemBookingAndCommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Реплика — вторая база H2 со схемой, но без репликации: все, что записано в основную базу,
+ * в реплике так и не появляется, то есть реплика бесконечно отстает. У контекста своя основная база,
+ * а кэш второго уровня выключен: регионы JCache общие для всей JVM, и сущности с теми же id
+ * смешались бы с сущностями из контекстов других тестов.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "shareit.datasource.replica.url=jdbc:h2:mem:routing-replica",
+        "shareit.datasource.replica.read-your-writes=1m"})
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ReadYourWritesIntegrationTest {
+
+    private final MockMvc mvc;
+
+    private final UserService userService;
+
+    private final ItemService itemService;
+
+    private final BookingService bookingService;
+
+    private final ReadYourWritesFilter readYourWritesFilter;
+
+    // вне транзакции запросы идут в основную базу
+    private final DataSource dataSource;
+
+    private final HikariDataSource replicaDataSource;
+
+    @Test
+    void readYourWritesTest() throws Exception {
+        UserDto owner = userService.createUser(UserDto.builder().name("owner").email("owner@routing.com").build());
+        UserDto booker = userService.createUser(UserDto.builder().name("booker").email("booker@routing.com").build());
+        UserDto other = userService.createUser(UserDto.builder().name("other").email("other@routing.com").build());
+        ItemDto item = itemService.addItem(owner.getId(),
+                ItemDto.builder().name("Дрель").description("Ударная дрель").available(true).build());
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+        mvc.perform(post("/bookings")
+                        .header(ReadYourWritesFilter.USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("{\"itemId\":%d,\"start\":\"%s\",\"end\":\"%s\"}",
+                                item.getId(), start, start.plusDays(1))))
+                .andExpect(status().isOk());
+        long bookingId = new JdbcTemplate(dataSource).queryForObject("select max(ID) from BOOKINGS where BOOKER_ID = ?",
+                Long.class, booker.getId());
+
+        // без привязки к основной базе чтение идет в реплику, где этих записей еще нет
+        assertThrows(NotFoundException.class, () -> bookingService.getBookingById(booker.getId(), bookingId));
+        assertTrue(readYourWritesFilter.isRecentWriter(booker.getId()));
+        assertTrue(readYourWritesFilter.isRecentWriter(owner.getId()));
+        assertFalse(readYourWritesFilter.isRecentWriter(other.getId()));
+
+        mvc.perform(get("/bookings/{bookingId}", bookingId)
+                        .header(ReadYourWritesFilter.USER_HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(bookingId));
+        mvc.perform(get("/bookings/owner")
+                        .header(ReadYourWritesFilter.USER_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    /**
+     * Пользователь и вещь есть в обеих базах, подтвержденные бронирования — только в основной.
+     * Первым к таймлайну вещи обращается чтение в транзакции readOnly, и таймлайн все равно строится по основной базе.
+     */
+    @Test
+    void bookingTimelineLoadedFromPrimaryTest() {
+        UserDto owner = userService.createUser(UserDto.builder().name("owner").email("owner@timeline.com").build());
+        UserDto booker = userService.createUser(UserDto.builder().name("booker").email("booker@timeline.com").build());
+        ItemDto item = itemService.addItem(owner.getId(),
+                ItemDto.builder().name("Пила").description("Дисковая пила").available(true).build());
+        JdbcTemplate primary = new JdbcTemplate(dataSource);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        for (UserDto user : List.of(owner, booker)) {
+            replica.update("insert into USERS (ID, NAME, EMAIL) values (?, ?, ?)",
+                    user.getId(), user.getName(), user.getEmail());
+        }
+        replica.update("insert into ITEMS (ID, NAME, DESCRIPTION, AVAILABLE, OWNER_ID) values (?, ?, ?, ?, ?)",
+                item.getId(), item.getName(), item.getDescription(), true, owner.getId());
+        LocalDateTime now = LocalDateTime.now();
+        String insertBooking = "insert into BOOKINGS (ID, START_DATE, END_DATE, ITEM_ID, BOOKER_ID, STATUS) "
+                + "values (?, ?, ?, ?, ?, 'APPROVED')";
+        primary.update(insertBooking, 1_000_001L, now.minusDays(2), now.minusDays(1), item.getId(), booker.getId());
+        primary.update(insertBooking, 1_000_002L, now.plusDays(1), now.plusDays(2), item.getId(), booker.getId());
+
+        ItemBookingAndCommentDto found = itemService.getItemById(item.getId(), owner.getId());
+
+        assertEquals(1_000_001L, found.getLastBooking().getId());
+        assertEquals(1_000_002L, found.getNextBooking().getId());
+    }
+
+    @TestConfiguration
+    static class ReplicaSchema {
+
+        /**
+         * Схема в реплике создается до первых чтений, в том числе до построения индексов в памяти.
+         */
+        @Bean
+        static BeanPostProcessor replicaSchemaPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if ("replicaDataSource".equals(beanName)) {
+                        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute((DataSource) bean);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica;
+
+    private JdbcTemplate jdbc;
+
+    private TransactionTemplate writeTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = createDatabase("primary");
+        replica = createDatabase("replica");
+        RoutingDataSource routing = new RoutingDataSource(primary, replica);
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingDataSource.clearPrimaryOnly();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyTransactionTest() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> node()));
+    }
+
+    @Test
+    void writeTransactionTest() {
+        assertEquals("primary", writeTransaction.execute(status -> node()));
+    }
+
+    @Test
+    void withoutTransactionTest() {
+        assertEquals("primary", node());
+    }
+
+    @Test
+    void readOnlyInsideWriteTransactionTest() {
+        assertEquals("primary", writeTransaction.execute(status -> readOnlyTransaction.execute(inner -> node())));
+    }
+
+    @Test
+    void readOnlyTransaction_WhenPrimaryOnlyTest() {
+        RoutingDataSource.setPrimaryOnly();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> node()));
+
+        RoutingDataSource.clearPrimaryOnly();
+
+        assertEquals("replica", readOnlyTransaction.execute(status -> node()));
+    }
+
+    @Test
+    void writeThenReadOnlyTransactionTest() {
+        writeTransaction.executeWithoutResult(status -> jdbc.update("insert into NODE (NAME) values ('written')"));
+
+        Integer replicaCount = readOnlyTransaction.execute(status ->
+                jdbc.queryForObject("select count(*) from NODE", Integer.class));
+
+        assertEquals(2, jdbc.queryForObject("select count(*) from NODE", Integer.class));
+        assertEquals(1, replicaCount);
+    }
+
+    private String node() {
+        return jdbc.queryForObject("select NAME from NODE order by NAME limit 1", String.class);
+    }
+
+    private static EmbeddedDatabase createDatabase(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("create table NODE (NAME varchar(32) not null)");
+        jdbc.update("insert into NODE (NAME) values (?)", name);
+        return database;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.export.service.ExportService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.transaction.Transactional;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@Transactional
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ExportServiceIntegrationTest {
+
+    private final ExportService exportService;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final ObjectMapper mapper;
+
+    @Test
+    void exportUsersWritesOneLinePerUser() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(userService.createUser(new UserDto(null, "user" + i, "export" + i + "@user.com")).getId());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportUsers(out);
+
+        List<JsonNode> lines = parse(out);
+        List<Long> exportedIds = new ArrayList<>();
+        lines.forEach(line -> exportedIds.add(line.get("id").asLong()));
+        assertThat(exportedIds, hasItems(ids.toArray(new Long[0])));
+        assertThat(out.toString(StandardCharsets.UTF_8), endsWith("\n"));
+    }
+
+    @Test
+    void exportBookingsWritesFlatRows() throws IOException {
+        UserDto owner = userService.createUser(new UserDto(null, "owner", "export-owner@user.com"));
+        UserDto booker = userService.createUser(new UserDto(null, "booker", "export-booker@user.com"));
+        ItemDto item = itemService.addItem(owner.getId(), new ItemDto(null, "Дрель", "Простая дрель", true, null));
+        long bookingId = bookingService.addBooking(BookingRequestDto.builder()
+                .itemId(item.getId())
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build(), booker.getId()).getId();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportBookings(out);
+
+        JsonNode row = parse(out).stream()
+                .filter(line -> line.get("id").asLong() == bookingId)
+                .findFirst()
+                .orElseThrow();
+        assertThat(row.get("item").get("name").asText(), is("Дрель"));
+        assertThat(row.get("booker").get("id").asLong(), is(booker.getId()));
+        assertThat(row.get("status").asText(), is("WAITING"));
+    }
+
+    private List<JsonNode> parse(ByteArrayOutputStream out) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(mapper.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -22,7 +22,7 @@ public class CommentMapperTest {
     @BeforeEach
     public void setUp() {
         user = new User(1L, "Katya", "katya@user.com");
-        item = new Item(1L, "itemNameOne", "itemDescriptionOne", true, user, null);
+        item = new Item(1L, "itemNameOne", "itemDescriptionOne", true, user, null, 0L);
         comment = new Comment(1L, "text", item, user, LocalDateTime.now());
         commentDto = new CommentDto(1L, "text", user.getName(), LocalDateTime.now(), item.getId());
     }
@@ -7,11 +7,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookingAndCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemImportService;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
@@ -36,6 +41,9 @@ public class ItemControllerTest {
     @MockBean
     ItemService itemService;
 
+    @MockBean
+    ItemImportService itemImportService;
+
     @Autowired
     private MockMvc mvc;
 
@@ -70,6 +78,37 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.available", is(itemDto.getAvailable()), Boolean.class));
     }
 
+    @Test
+    public void importItemsTest() throws Exception {
+        ItemImportResultDto result = new ItemImportResultDto();
+        result.setTotal(2);
+        result.setCreated(1);
+        result.setFailed(1);
+        result.getErrors().add(new ItemImportResultDto.LineError(2, "name: must not be blank"));
+        when(itemImportService.importItems(anyLong(), any())).thenReturn(result);
+
+        mvc.perform(post("/items/bulk")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(mapper.writeValueAsString(itemDto) + "\n" + mapper.writeValueAsString(itemDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(2)));
+    }
+
+    @Test
+    public void getMatchingRequestsTest() throws Exception {
+        when(itemService.getMatchingRequests(1L, 1L)).thenReturn(List.of(new RequestMatchDto(3L, 1L, 0.5)));
+
+        mvc.perform(get("/items/1/matching-requests")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].requestId", is(3L), Long.class));
+    }
+
     @Test
     public void updateItemTest() throws Exception {
         long userId = 1L;
@@ -90,6 +129,20 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.available", is(itemDtoNew.getAvailable()), Boolean.class));
     }
 
+    @Test
+    public void updateItem_WhenConcurrentlyModifiedTest() throws Exception {
+        when(itemService.updateItem(1L, 1L, itemDto))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+
+        mvc.perform(patch("/items/1")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(mapper.writeValueAsString(itemDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     public void getItemByIdTest() throws Exception {
         long userId = 1L;
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.service.ItemImportService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Загрузка вещей пачками в настоящих транзакциях: в {@code @Transactional}-тесте все пачки
+ * присоединились бы к транзакции теста. Пользователь удаляется после теста, его вещи — каскадом.
+ */
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemImportIntegrationTest {
+
+    // ItemImportServiceImpl.CHUNK_SIZE
+    private static final int CHUNK = 500;
+
+    private final ItemImportService itemImportService;
+    private final UserService userService;
+    private final DataSource dataSource;
+
+    private Long ownerId;
+
+    @AfterEach
+    void tearDown() {
+        if (ownerId != null) {
+            userService.deleteUser(ownerId);
+        }
+    }
+
+    @Test
+    void failedChunkRolledBackAndOthersCommitted() throws IOException {
+        ownerId = userService.createUser(new UserDto(null, "importer", "importer@user.com")).getId();
+        StringBuilder body = new StringBuilder();
+        // первая пачка целиком сохранится
+        IntStream.rangeClosed(1, CHUNK).forEach(line -> body.append(record("first-" + line)));
+        // во второй пачке одно название длиннее столбца NAME: проверку DTO оно проходит, падает вставка
+        IntStream.rangeClosed(CHUNK + 1, 2 * CHUNK).forEach(line -> body.append(record(
+                line == CHUNK + CHUNK / 2 ? "x".repeat(300) : "second-" + line)));
+        // неполная третья пачка обрывается синтаксической ошибкой
+        IntStream.rangeClosed(2 * CHUNK + 1, 2 * CHUNK + 100).forEach(line -> body.append(record("third-" + line)));
+        body.append("{\"name\": \"broken\", \"descr\n");
+        assertThat(TransactionSynchronizationManager.isActualTransactionActive(), is(false));
+
+        ItemImportResultDto result = itemImportService.importItems(ownerId,
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getTotal(), is(2 * CHUNK + 101));
+        assertThat(result.getCreated(), is(CHUNK + 100));
+        assertThat(result.getFailed(), is(CHUNK + 1));
+        assertThat(result.getErrors().stream().map(ItemImportResultDto.LineError::getLine)
+                .collect(Collectors.toList()), contains(IntStream.concat(
+                IntStream.rangeClosed(CHUNK + 1, 2 * CHUNK), IntStream.of(2 * CHUNK + 101)).boxed().toArray()));
+        assertThat(countItems("%"), is(CHUNK + 100));
+        assertThat(countItems("first-%"), is(CHUNK));
+        assertThat(countItems("second-%"), is(0));
+        assertThat(countItems("third-%"), is(100));
+    }
+
+    private int countItems(String namePattern) {
+        Integer count = new JdbcTemplate(dataSource).queryForObject(
+                "select count(*) from ITEMS where OWNER_ID = ? and NAME like ?", Integer.class, ownerId, namePattern);
+        return count == null ? 0 : count;
+    }
+
+    private static String record(String name) {
+        return "{\"name\": \"" + name + "\", \"description\": \"imported\", \"available\": true}\n";
+    }
+}
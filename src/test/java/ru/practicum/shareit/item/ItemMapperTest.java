@@ -20,7 +20,7 @@ public class ItemMapperTest {
     @BeforeEach
     public void setUp() {
         user = new User(1L, "Katya", "katya@user.com");
-        item = new Item(1L, "itemNameOne", "itemDescriptionOne", true, user, null);
+        item = new Item(1L, "itemNameOne", "itemDescriptionOne", true, user, null, 0L);
         itemDto = new ItemDto(1L, "itemNameOne", "itemDescriptionOne", true, null);
         itemBookingAndCommentDto = new ItemBookingAndCommentDto(1L, "itemNameOne",
                 "itemDescriptionOne", true, null, null, null);
@@ -16,6 +16,7 @@ import ru.practicum.shareit.user.repository.UserRepository;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -48,7 +49,7 @@ public class ItemRepositoryTest {
 
         itemRequest = itemRequestRepository.save(new ItemRequest(1L, "NeedNewSofa", userRequestor, LocalDateTime.now().minusMinutes(20)));
 
-        item = itemRepository.save(new Item(1L, "Sofa", "New", true, userOwner, itemRequest));
+        item = itemRepository.save(new Item(1L, "Sofa", "New", true, userOwner, itemRequest, 0L));
 
     }
 
@@ -91,4 +92,44 @@ public class ItemRepositoryTest {
         assertNotNull(itemsSearchResult);
         assertEquals(itemsSearchResult.size(), 0);
     }
+
+    @Test
+    public void searchSkipsUnavailableItemsTest() {
+        itemRepository.save(new Item(null, "Old sofa", "Broken", false, userOwner, null, 0L));
+
+        List<Item> itemsSearchResult = itemRepository.search("sofa", PageRequest.of(0, 10));
+
+        assertEquals(1, itemsSearchResult.size());
+        assertEquals(item.getId(), itemsSearchResult.get(0).getId());
+    }
+
+    @Test
+    public void searchRanksNameMatchesFirstTest() {
+        Item byDescription = itemRepository.save(new Item(null, "Armchair", "Goes well with a sofa", true,
+                userOwner, null, 0L));
+        Item byName = itemRepository.save(new Item(null, "Sofa bed", "Folding", true, userOwner, null, 0L));
+
+        List<Item> itemsSearchResult = itemRepository.search("sofa", PageRequest.of(0, 10));
+
+        assertEquals(3, itemsSearchResult.size());
+        assertEquals(item.getId(), itemsSearchResult.get(0).getId());
+        assertEquals(byName.getId(), itemsSearchResult.get(1).getId());
+        assertEquals(byDescription.getId(), itemsSearchResult.get(2).getId());
+    }
+
+    @Test
+    public void findAvailableContainingNewestFirstTest() {
+        itemRepository.save(new Item(null, "Old sofa", "Broken", false, userOwner, null, 0L));
+        Item byDescription = itemRepository.save(new Item(null, "Armchair", "Goes well with a sofa", true,
+                userOwner, null, 0L));
+        itemRepository.save(new Item(null, "Table", "Oak", true, userOwner, null, 0L));
+
+        List<ItemRepository.AvailableItemView> items = itemRepository.findAvailableContaining("sofa",
+                PageRequest.of(0, 10));
+
+        assertEquals(List.of(byDescription.getId(), item.getId()), items.stream()
+                .map(ItemRepository.AvailableItemView::getId)
+                .collect(Collectors.toList()));
+        assertEquals(userOwner.getId(), items.get(0).getOwnerId());
+    }
 }
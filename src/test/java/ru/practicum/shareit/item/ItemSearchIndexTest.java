@@ -0,0 +1,78 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSavedEvent;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+import ru.practicum.shareit.user.service.UserDeletedEvent;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private ItemSearchIndex itemSearchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(itemSearchIndex, "enabled", true);
+        when(itemRepository.findAllForSearchIndex()).thenReturn(List.of(
+                new ItemDto(1L, "Дрель", "Простая дрель", true, null),
+                new ItemDto(2L, "Отвертка", "Аккумуляторная отвертка", true, null),
+                new ItemDto(3L, "Перфоратор", "Мощнее, чем дрель", true, null),
+                new ItemDto(4L, "Дрель ударная", "Сломана", false, null)));
+        itemSearchIndex.build();
+    }
+
+    @Test
+    public void searchRanksNameMatchesFirstTest() {
+        assertEquals(List.of(1L, 3L), itemSearchIndex.search("дРелЬ", 0, 10));
+        assertEquals(List.of(2L), itemSearchIndex.search("аккумулятор", 0, 10));
+        assertEquals(List.of(), itemSearchIndex.search("пила", 0, 10));
+    }
+
+    @Test
+    public void searchShortQueryTest() {
+        assertEquals(List.of(1L, 3L), itemSearchIndex.search("др", 0, 10));
+    }
+
+    @Test
+    public void searchPagesTest() {
+        assertEquals(List.of(3L), itemSearchIndex.search("дрел", 1, 1));
+        assertEquals(List.of(), itemSearchIndex.search("дрел", 2, 1));
+    }
+
+    @Test
+    public void onItemSavedUpdatesIndexTest() {
+        itemSearchIndex.onItemSaved(new ItemSavedEvent(new ItemDto(2L, "Шуруповерт", "Аккумуляторный", true, null),
+                1L, false));
+        itemSearchIndex.onItemSaved(new ItemSavedEvent(new ItemDto(5L, "Дрель-миксер", "Для красок", true, null),
+                1L, true));
+
+        assertEquals(List.of(), itemSearchIndex.search("отвертка", 0, 10));
+        assertEquals(List.of(2L), itemSearchIndex.search("шуруп", 0, 10));
+        assertEquals(List.of(1L, 5L, 3L), itemSearchIndex.search("дрель", 0, 10));
+    }
+
+    @Test
+    public void onUserDeletedRemovesItemsTest() {
+        itemSearchIndex.onUserDeleted(new UserDeletedEvent(1L, List.of(1L), List.of()));
+
+        assertEquals(List.of(3L), itemSearchIndex.search("дрель", 0, 10));
+        assertEquals(List.of(3L), itemSearchIndex.search("др", 0, 1));
+    }
+}
@@ -7,11 +7,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingTimeline;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidateException;
 import ru.practicum.shareit.item.dto.*;
@@ -19,8 +22,11 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSavedEvent;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.RequestMatcher;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -52,6 +58,18 @@ public class ItemServiceImplTest {
     @Mock
     private ItemRequestRepository itemRequestRepository;
 
+    @Mock
+    private BookingTimeline bookingTimeline;
+
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+
+    @Mock
+    private RequestMatcher requestMatcher;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ItemServiceImpl itemService;
     private User userOneBooker;
@@ -68,17 +86,17 @@ public class ItemServiceImplTest {
     public void setUp() {
         userOneBooker = new User(1L, "userOneBooker", "userOne@user.com");
         userTwoOwner = new User(2L, "userTwoOwner", "userTwo@user.com");
-        itemOne = new Item(1L, "itemNameOne", "itemDescriptionOne", true, userTwoOwner, null);
+        itemOne = new Item(1L, "itemNameOne", "itemDescriptionOne", true, userTwoOwner, null, 0L);
         itemDto = ItemMapper.toItemDto(itemOne);
         commentOne = new Comment(1L, "text", itemOne, userOneBooker, LocalDateTime.now());
         commentTwo = new Comment(2L, "textBig", itemOne, userOneBooker, LocalDateTime.now().minusDays(1));
         commentDto1 = CommentMapper.toCommentDto(commentOne);
         booking1 = new Booking(1L, LocalDateTime.now().minusDays(10),
-                LocalDateTime.now().minusDays(5), itemOne, userOneBooker, Status.APPROVED);
+                LocalDateTime.now().minusDays(5), itemOne, userOneBooker, Status.APPROVED, 0L);
         booking2 = new Booking(3L,
                 LocalDateTime.now().plusDays(15),
                 LocalDateTime.now().plusDays(20),
-                itemOne, userOneBooker, Status.APPROVED);
+                itemOne, userOneBooker, Status.APPROVED, 0L);
     }
 
     @Test
@@ -97,6 +115,7 @@ public class ItemServiceImplTest {
         assertEquals(itemDto.getAvailable(), itemDto1.getAvailable());
 
         verify(itemRepository, times(1)).save(itemOne);
+        verify(eventPublisher, times(1)).publishEvent(any(ItemSavedEvent.class));
     }
 
     @Test
@@ -140,7 +159,8 @@ public class ItemServiceImplTest {
 
         when(itemRepository.findById(1L)).thenReturn(Optional.of(itemOne));
         when(commentRepository.findAllByItemId(anyLong())).thenReturn(List.of(commentOne));
-        when(bookingRepository.findByItemId(anyLong(), any())).thenReturn(List.of(booking1, booking2));
+        when(bookingTimeline.findLast(anyLong(), any())).thenReturn(BookingMapper.toBookingItemDto(booking1));
+        when(bookingTimeline.findNext(anyLong(), any())).thenReturn(BookingMapper.toBookingItemDto(booking2));
 
         ItemBookingAndCommentDto itemBookingAndCommentDto = itemService.getItemById(1L, 2L);
 
@@ -153,6 +173,19 @@ public class ItemServiceImplTest {
         assertEquals(itemBookingAndCommentDto.getComments().get(0).getId(), commentOne.getId());
     }
 
+    @Test
+    public void getItemById_WhenUserNotOwnerTest() {
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(itemOne));
+        when(commentRepository.findAllByItemId(anyLong())).thenReturn(List.of(commentOne));
+
+        ItemBookingAndCommentDto itemBookingAndCommentDto = itemService.getItemById(1L, userOneBooker.getId());
+
+        assertNotNull(itemBookingAndCommentDto);
+        assertNull(itemBookingAndCommentDto.getLastBooking());
+        assertNull(itemBookingAndCommentDto.getNextBooking());
+        verifyNoInteractions(bookingTimeline);
+    }
+
     @Test
     public void getItemById_WhenItemNotFoundTest() {
         long itemId = 999L;
@@ -167,10 +200,10 @@ public class ItemServiceImplTest {
 
     @Test
     public void getAllItemsByUserTest() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(userTwoOwner));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(itemRepository.findAllByOwnerId(anyLong(), any())).thenReturn(List.of(itemOne));
         when(commentRepository.findByItemIdIn(anyList())).thenReturn(List.of(commentOne));
-        when(bookingRepository.findByItemIdIn(anyList(), any())).thenReturn(List.of(booking1, booking2));
+        when(bookingRepository.findLastAndNextApprovedByItemIdIn(anyList(), any())).thenReturn(List.of(booking1, booking2));
 
         List<ItemBookingAndCommentDto> items = itemService.getAllItemsByUser(2L, 0, 5);
 
@@ -190,7 +223,7 @@ public class ItemServiceImplTest {
         int from = 0;
         int size = 1;
         PageRequest page = PageRequest.of(from, size, Sort.by("id").ascending());
-        when(userRepository.findById(userId)).thenReturn(Optional.of(userTwoOwner));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(itemRepository.findAllByOwnerId(userId, page)).thenReturn(Collections.emptyList());
         List<ItemBookingAndCommentDto> itemDtos = itemService.getAllItemsByUser(userId, from, size);
         assertNotNull(itemDtos);
@@ -209,6 +242,21 @@ public class ItemServiceImplTest {
         verify(itemRepository, times(1)).search(anyString(), any());
     }
 
+    @Test
+    public void searchByTextWithIndexTest() {
+        Item itemTwo = new Item(2L, "itemNameTwo", "itemDescriptionTwo", true, userTwoOwner, null, 0L);
+        when(itemSearchIndex.isEnabled()).thenReturn(true);
+        when(itemSearchIndex.search("itemName", 0, 10)).thenReturn(List.of(2L, 1L));
+        when(itemRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(itemOne, itemTwo));
+
+        List<ItemDto> itemDtos = itemService.searchItem("itemName", 0, 10);
+
+        assertEquals(2, itemDtos.size());
+        assertEquals(itemTwo.getId(), itemDtos.get(0).getId());
+        assertEquals(itemOne.getId(), itemDtos.get(1).getId());
+        verify(itemRepository, never()).search(anyString(), any());
+    }
+
     @Test
     public void searchByTestButBlankTest() {
         int from = 0;
@@ -5,8 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import ru.practicum.shareit.item.dto.ItemBookingAndCommentDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemImportService;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
@@ -14,7 +16,11 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.transaction.Transactional;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -27,6 +33,7 @@ public class ItemServiceIntegrationTest {
     private final ItemService service;
     private final UserService userService;
     private final ItemService itemService;
+    private final ItemImportService itemImportService;
 
     @Test
     void getAllItemsByUser() {
@@ -48,6 +55,46 @@ public class ItemServiceIntegrationTest {
         }
     }
 
+    @Test
+    void importItemsFromNdjson() throws IOException {
+        UserDto owner = userService.createUser(UserMapper.toUserDto(makeUser("lena", "lena@user.com")));
+        String body = "{\"name\": \"table\", \"description\": \"new\", \"available\": true}\n" +
+                "{\"name\": \"\", \"description\": \"red\", \"available\": true}\n" +
+                "{\"name\": \"sofa\", \"description\": \"red\", \"available\": \"maybe\"}\n" +
+                "{\"name\": \"chair\", \"description\": \"old\", \"available\": false, \"requestId\": 100500}\n" +
+                "{\"name\": \"lamp\", \"description\": \"old\", \"available\": false}\n";
+
+        ItemImportResultDto result = itemImportService.importItems(owner.getId(), toStream(body));
+
+        assertThat(result.getTotal(), is(5));
+        assertThat(result.getCreated(), is(2));
+        assertThat(result.getFailed(), is(3));
+        assertThat(result.getErrors().stream().map(ItemImportResultDto.LineError::getLine)
+                .collect(Collectors.toList()), contains(2, 3, 4));
+        assertThat(itemService.getAllItemsByUser(owner.getId(), 0, 10).stream()
+                .map(ItemBookingAndCommentDto::getName)
+                .collect(Collectors.toList()), contains("table", "lamp"));
+    }
+
+    @Test
+    void importItemsFromJsonArrayStopsAtBrokenJson() throws IOException {
+        UserDto owner = userService.createUser(UserMapper.toUserDto(makeUser("oleg", "oleg@user.com")));
+        String body = "[{\"name\": \"table\", \"description\": \"new\", \"available\": true},\n" +
+                "{\"name\": \"sofa\", \"description\": \"red\", \"available\": true},\n" +
+                "{\"name\": \"chair\", \"descr";
+
+        ItemImportResultDto result = itemImportService.importItems(owner.getId(), toStream(body));
+
+        assertThat(result.getTotal(), is(3));
+        assertThat(result.getCreated(), is(2));
+        assertThat(result.getErrors(), hasSize(1));
+        assertThat(result.getErrors().get(0).getLine(), is(3));
+    }
+
+    private ByteArrayInputStream toStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
     private User makeUser(String name, String email) {
         User user = new User();
         user.setName(name);
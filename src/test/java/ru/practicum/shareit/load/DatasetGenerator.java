@@ -0,0 +1,223 @@
+package ru.practicum.shareit.load;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.Status;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Синтетические данные в таблицах schema.sql: пользователи, запросы, вещи, бронирования и комментарии.
+ * Строки пишутся пакетами через JDBC с id от 1 (на PostgreSQL пакеты склеивает reWriteBatchedInserts),
+ * затем последовательности сдвигаются за последний id, чтобы сохранения через Hibernate с ними не пересекались.
+ * Владельцы вещей и популярность вещей распределены по Zipf: несколько владельцев держат большую часть вещей,
+ * а бронирования и отзывы сосредоточены на небольшой доле вещей. Бронирования соблюдают правила сервиса:
+ * владелец не бронирует свою вещь, подтвержденные бронирования одной вещи не пересекаются по времени.
+ * Генератор детерминирован по seed.
+ * Размеры можно задать системными свойствами dataset.* (см. fromSystemProperties).
+ */
+@Slf4j
+@Getter
+public final class DatasetGenerator {
+
+    public static final String[] WORDS = {"дрель", "стол", "стул", "лампа", "палатка", "велосипед", "самокат",
+            "пылесос", "удочка", "лыжи", "гитара", "проектор", "шуруповерт", "лестница", "мангал", "рюкзак"};
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final int users;
+
+    private final int requests;
+
+    private final int items;
+
+    private final int bookings;
+
+    private final int comments;
+
+    private final long seed;
+
+    private final double skew;
+
+    public DatasetGenerator(int users, int requests, int items, int bookings, int comments, long seed, double skew) {
+        this.users = users;
+        this.requests = requests;
+        this.items = items;
+        this.bookings = bookings;
+        this.comments = comments;
+        this.seed = seed;
+        this.skew = skew;
+    }
+
+    public static DatasetGenerator fromSystemProperties() {
+        return new DatasetGenerator(
+                Integer.getInteger("dataset.users", 10_000),
+                Integer.getInteger("dataset.requests", 20_000),
+                Integer.getInteger("dataset.items", 50_000),
+                Integer.getInteger("dataset.bookings", 1_000_000),
+                Integer.getInteger("dataset.comments", 100_000),
+                Long.getLong("dataset.seed", 42L),
+                Double.parseDouble(System.getProperty("dataset.skew", "1.1")));
+    }
+
+    public void generate(DataSource dataSource) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Random random = new Random(seed);
+        LocalDateTime now = LocalDateTime.now();
+        ZipfSampler owners = ownerSampler();
+        ZipfSampler popularItems = itemSampler();
+        Status[] statuses = Status.values();
+        int[] itemOwners = new int[items + 1];
+        // занятые подтвержденными бронированиями часы каждой вещи: начало -> конец, отсчет от now
+        List<TreeMap<Integer, Integer>> approvedSlots = new ArrayList<>(Collections.nCopies(items + 1, null));
+
+        insert(jdbc, "USERS", "insert into USERS (ID, NAME, EMAIL) values (?, ?, ?)", users, (ps, id) -> {
+            ps.setLong(1, id);
+            ps.setString(2, "user" + id);
+            ps.setString(3, "user" + id + "@load.com");
+        });
+        insert(jdbc, "REQUESTS", "insert into REQUESTS (ID, DESCRIPTION, REQUESTOR_ID, CREATED) values (?, ?, ?, ?)",
+                requests, (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, "Нужна " + word(random) + " на выходные");
+                    ps.setLong(3, 1 + random.nextInt(users));
+                    ps.setTimestamp(4, Timestamp.valueOf(now.minusMinutes(random.nextInt(60 * 24 * 365))));
+                });
+        insert(jdbc, "ITEMS", "insert into ITEMS (ID, NAME, DESCRIPTION, AVAILABLE, OWNER_ID, REQUEST_ID) " +
+                "values (?, ?, ?, ?, ?, ?)", items, (ps, id) -> {
+                    String word = word(random);
+                    ps.setLong(1, id);
+                    ps.setString(2, word + " " + id);
+                    ps.setString(3, "Хорошая " + word + ", " + word(random) + " в комплекте");
+                    ps.setBoolean(4, random.nextInt(10) > 0);
+                    itemOwners[(int) id] = owners.sample(random);
+                    ps.setLong(5, itemOwners[(int) id]);
+                    // примерно каждая пятая вещь добавлена в ответ на запрос
+                    if (requests > 0 && random.nextInt(5) == 0) {
+                        ps.setLong(6, 1 + random.nextInt(requests));
+                    } else {
+                        ps.setNull(6, Types.BIGINT);
+                    }
+                });
+        insert(jdbc, "BOOKINGS", "insert into BOOKINGS (ID, START_DATE, END_DATE, ITEM_ID, BOOKER_ID, STATUS) " +
+                "values (?, ?, ?, ?, ?, ?)", bookings, (ps, id) -> {
+                    // бронирования в прошлом, текущие и будущие в пределах года от текущего момента
+                    int start = random.nextInt(24 * 365 * 2) - 24 * 365;
+                    int end = start + 1 + random.nextInt(24 * 7);
+                    int item = popularItems.sample(random);
+                    int booker = 1 + random.nextInt(users);
+                    if (booker == itemOwners[item]) {
+                        booker = booker % users + 1;
+                    }
+                    Status status = statuses[random.nextInt(statuses.length)];
+                    // пересекающееся с подтвержденным бронирование владелец подтвердить не может и отклоняет
+                    if (status == Status.APPROVED && !reserve(approvedSlots, item, start, end)) {
+                        status = Status.REJECTED;
+                    }
+                    ps.setLong(1, id);
+                    ps.setTimestamp(2, Timestamp.valueOf(now.plusHours(start)));
+                    ps.setTimestamp(3, Timestamp.valueOf(now.plusHours(end)));
+                    ps.setLong(4, item);
+                    ps.setLong(5, booker);
+                    ps.setString(6, status.name());
+                });
+        insert(jdbc, "COMMENTS", "insert into COMMENTS (ID, TEXT, ITEM_ID, AUTHOR_ID, CREATED) values (?, ?, ?, ?, ?)",
+                comments, (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, "Отличная " + word(random) + ", рекомендую");
+                    ps.setLong(3, popularItems.sample(random));
+                    ps.setLong(4, 1 + random.nextInt(users));
+                    ps.setTimestamp(5, Timestamp.valueOf(now.minusDays(random.nextInt(365))));
+                });
+
+        restartSequence(jdbc, "USERS_SEQ", users);
+        restartSequence(jdbc, "REQUESTS_SEQ", requests);
+        restartSequence(jdbc, "ITEMS_SEQ", items);
+        restartSequence(jdbc, "BOOKINGS_SEQ", bookings);
+        restartSequence(jdbc, "COMMENTS_SEQ", comments);
+    }
+
+    /**
+     * Владельцы с тем же распределением, что и при генерации: чаще выпадают те, у кого больше вещей.
+     */
+    public ZipfSampler ownerSampler() {
+        return new ZipfSampler(users, skew);
+    }
+
+    /**
+     * Вещи с тем же распределением популярности, что и у бронирований.
+     */
+    public ZipfSampler itemSampler() {
+        return new ZipfSampler(items, skew);
+    }
+
+    /**
+     * Занимает часы [start, end) вещи, если они не пересекаются с уже занятыми.
+     */
+    private static boolean reserve(List<TreeMap<Integer, Integer>> slots, int item, int start, int end) {
+        TreeMap<Integer, Integer> taken = slots.get(item);
+        if (taken == null) {
+            taken = new TreeMap<>();
+            slots.set(item, taken);
+        }
+        Map.Entry<Integer, Integer> before = taken.floorEntry(start);
+        Map.Entry<Integer, Integer> after = taken.ceilingEntry(start);
+        if (before != null && before.getValue() > start || after != null && after.getKey() < end) {
+            return false;
+        }
+        taken.put(start, end);
+        return true;
+    }
+
+    public static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    /**
+     * Строки генерируются пакетами по BATCH_SIZE, в памяти никогда не лежит больше одного пакета.
+     */
+    private static void insert(JdbcTemplate jdbc, String table, String sql, int rows, RowWriter writer) {
+        long started = System.nanoTime();
+        for (int from = 1; from <= rows; from += BATCH_SIZE) {
+            int first = from;
+            int size = Math.min(BATCH_SIZE, rows - from + 1);
+            jdbc.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    writer.write(ps, first + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+        log.info("{}: {} строк за {} мс", table, rows, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * С оптимизатором pooled-lo значение последовательности — первый id выделенного блока.
+     */
+    private static void restartSequence(JdbcTemplate jdbc, String sequence, int lastId) {
+        jdbc.execute("alter sequence " + sequence + " restart with " + (lastId + 1));
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement ps, long id) throws SQLException;
+    }
+}
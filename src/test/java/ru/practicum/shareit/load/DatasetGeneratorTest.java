@@ -0,0 +1,110 @@
+package ru.practicum.shareit.load;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DatasetGeneratorTest {
+
+    private final DatasetGenerator generator = new DatasetGenerator(50, 30, 200, 3000, 500, 42, 1.1);
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void generateTest() {
+        generator.generate(database);
+
+        assertEquals(50, count("USERS"));
+        assertEquals(30, count("REQUESTS"));
+        assertEquals(200, count("ITEMS"));
+        assertEquals(3000, count("BOOKINGS"));
+        assertEquals(500, count("COMMENTS"));
+        assertEquals(201, jdbc.queryForObject("select next value for ITEMS_SEQ", Long.class));
+        assertEquals(3001, jdbc.queryForObject("select next value for BOOKINGS_SEQ", Long.class));
+    }
+
+    @Test
+    void generateSkewedTest() {
+        generator.generate(database);
+
+        List<Long> bookingsPerItem = jdbc.queryForList("select count(*) from BOOKINGS group by ITEM_ID " +
+                "order by count(*) desc", Long.class);
+        List<Long> itemsPerOwner = jdbc.queryForList("select count(*) from ITEMS group by OWNER_ID " +
+                "order by count(*) desc", Long.class);
+
+        // самая популярная вещь собирает в разы больше бронирований, чем вещь в среднем
+        assertTrue(bookingsPerItem.get(0) > 5 * 3000 / 200);
+        assertTrue(itemsPerOwner.get(0) > 5 * 200 / 50);
+    }
+
+    @Test
+    void generateConsistentBookingsTest() {
+        generator.generate(database);
+
+        assertEquals(0, jdbc.queryForObject("select count(*) from BOOKINGS b join ITEMS i on b.ITEM_ID = i.ID " +
+                "where b.BOOKER_ID = i.OWNER_ID", Long.class));
+        assertEquals(0, jdbc.queryForObject("select count(*) from BOOKINGS a join BOOKINGS b " +
+                "on a.ITEM_ID = b.ITEM_ID and a.ID < b.ID " +
+                "where a.STATUS = 'APPROVED' and b.STATUS = 'APPROVED' " +
+                "and a.START_DATE < b.END_DATE and b.START_DATE < a.END_DATE", Long.class));
+        assertTrue(jdbc.queryForObject("select count(*) from BOOKINGS where STATUS = 'APPROVED'", Long.class) > 0);
+    }
+
+    @Test
+    void generateDeterministicTest() {
+        generator.generate(database);
+        List<Long> owners = jdbc.queryForList("select OWNER_ID from ITEMS order by ID", Long.class);
+        database.shutdown();
+        setUp();
+
+        generator.generate(database);
+
+        assertEquals(owners, jdbc.queryForList("select OWNER_ID from ITEMS order by ID", Long.class));
+    }
+
+    @Test
+    void zipfSamplerTest() {
+        ZipfSampler sampler = new ZipfSampler(10, 1.0);
+        Random random = new Random(1);
+        int[] hits = new int[11];
+
+        for (int i = 0; i < 10_000; i++) {
+            int rank = sampler.sample(random);
+            assertTrue(rank >= 1 && rank <= 10);
+            hits[rank]++;
+        }
+
+        assertTrue(hits[1] > hits[2] && hits[2] > hits[10]);
+    }
+
+    private long count(String table) {
+        return jdbc.queryForObject("select count(*) from " + table, Long.class);
+    }
+}
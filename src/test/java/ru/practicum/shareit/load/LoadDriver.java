@@ -0,0 +1,330 @@
+package ru.practicum.shareit.load;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный прогон без внешних инструментов: приложение поднимается во встроенном Tomcat на случайном порту,
+ * база заполняется DatasetGenerator, затем несколько потоков в этой же JVM вызывают REST API в заданной пропорции
+ * и в конце печатают пропускную способность и перцентили задержек по каждому вызову.
+ * <p>
+ * Запуск: {@code mvn -P load verify}, настройки передаются системными свойствами через load.args, например
+ * {@code -Dload.args="-Dload.threads=16 -Dload.duration=2m -Ddataset.bookings=3000000"}. По умолчанию база H2 в памяти,
+ * с {@code -Dspring.profiles.active=default} — локальный PostgreSQL из application.properties (таблицы пересоздаются).
+ * <ul>
+ *     <li>load.threads — число потоков-клиентов, по умолчанию 8;</li>
+ *     <li>load.warmup и load.duration — прогрев без замеров и время замера, по умолчанию 10s и 60s;</li>
+ *     <li>load.mix — веса вызовов, по умолчанию {@value #DEFAULT_MIX}.</li>
+ * </ul>
+ */
+@Slf4j
+public final class LoadDriver {
+
+    static final String DEFAULT_MIX = "item:30,items:10,search:10,bookings:15,bookings-owner:10,book:5," +
+            "requests:5,requests-all:10,user:5";
+
+    private static final String TOTAL = "total";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final String baseUri;
+
+    private final DatasetGenerator dataset;
+
+    private final ZipfSampler owners;
+
+    private final ZipfSampler items;
+
+    private final Map<Call, Integer> mix;
+
+    private final int threads;
+
+    private final Duration warmup;
+
+    private final Duration duration;
+
+    private final int totalWeight;
+
+    LoadDriver(String baseUri, DatasetGenerator dataset, Map<Call, Integer> mix, int threads,
+               Duration warmup, Duration duration) {
+        this.baseUri = baseUri;
+        this.dataset = dataset;
+        this.owners = dataset.ownerSampler();
+        this.items = dataset.itemSampler();
+        this.mix = mix;
+        this.threads = threads;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Сумма весов в load.mix должна быть положительной");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        DatasetGenerator dataset = DatasetGenerator.fromSystemProperties();
+        Map<Call, Integer> mix = parseMix(System.getProperty("load.mix", DEFAULT_MIX));
+        int threads = Integer.getInteger("load.threads", 8);
+        Duration warmup = DurationStyle.detectAndParse(System.getProperty("load.warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(System.getProperty("load.duration", "60s"));
+
+        try (ConfigurableApplicationContext context = LocalShareIt.start(WebApplicationType.SERVLET, dataset)) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            LoadDriver driver = new LoadDriver("http://localhost:" + port, dataset, mix, threads, warmup, duration);
+            driver.run();
+            driver.printReport();
+        }
+    }
+
+    /**
+     * Разбирает строку вида "item:30,search:10" в веса вызовов, порядок сохраняется для отчета.
+     */
+    static Map<Call, Integer> parseMix(String value) {
+        Map<Call, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Ожидается вызов:вес, получено: " + part);
+            }
+            mix.put(Call.of(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+
+    void run() throws Exception {
+        log.info("Нагрузка: {} потоков, прогрев {}, замер {}, смесь {}", threads, warmup, duration, mix);
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                // у каждого потока свой генератор, чтобы потоки не делили состояние Random
+                Random random = new Random(dataset.getSeed() + i + 1);
+                clients.add(executor.submit(() -> {
+                    drive(random, measureFrom, deadline);
+                    return null;
+                }));
+            }
+            for (Future<?> future : clients) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void drive(Random random, long measureFrom, long deadline) throws InterruptedException {
+        long now = System.nanoTime();
+        while (now < deadline) {
+            Call call = pick(random);
+            HttpRequest request = call.request(this, random);
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            }
+            long finished = System.nanoTime();
+            if (now >= measureFrom) {
+                record(call.key, status, finished - now);
+                record(TOTAL, status, finished - now);
+            }
+            now = finished;
+        }
+    }
+
+    private Call pick(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Map.Entry<Call, Integer> entry : mix.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Вызов не выбран");
+    }
+
+    private void record(String call, int status, long nanos) {
+        timer(call).record(nanos, TimeUnit.NANOSECONDS);
+        // 4xx — отказ по правилам приложения (например, бронь своей или недоступной вещи), а не сбой
+        if (status < 0 || status >= 500) {
+            counter("load.errors", call).increment();
+        } else if (status >= 400) {
+            counter("load.rejected", call).increment();
+        }
+    }
+
+    private Timer timer(String call) {
+        // окно статистики длиннее прогона, поэтому перцентили считаются по всем замерам
+        return Timer.builder("load.calls")
+                .tag("call", call)
+                .publishPercentiles(PERCENTILES)
+                .percentilePrecision(2)
+                .distributionStatisticExpiry(duration.plus(warmup).multipliedBy(2))
+                .distributionStatisticBufferLength(1)
+                .register(registry);
+    }
+
+    private Counter counter(String name, String call) {
+        return registry.counter(name, "call", call);
+    }
+
+    void printReport() {
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("%n%-16s %10s %8s %8s %10s %9s %9s %9s %9s%n",
+                "call", "count", "errors", "rejected", "rps", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        List<String> rows = new ArrayList<>();
+        mix.keySet().forEach(call -> rows.add(call.key));
+        rows.add(TOTAL);
+        for (String call : rows) {
+            HistogramSnapshot snapshot = timer(call).takeSnapshot();
+            StringBuilder line = new StringBuilder(String.format("%-16s %10d %8.0f %8.0f %10.1f",
+                    call, snapshot.count(), counter("load.errors", call).count(),
+                    counter("load.rejected", call).count(), snapshot.count() / seconds));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                line.append(String.format(" %9.2f", percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            line.append(String.format(" %9.2f", snapshot.max(TimeUnit.MILLISECONDS)));
+            System.out.println(line);
+        }
+    }
+
+    private HttpRequest.Builder get(String path, long userId) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+    }
+
+    private long userId(Random random) {
+        return 1 + random.nextInt(dataset.getUsers());
+    }
+
+    /**
+     * Вызовы API. Вещи и владельцы выбираются с тем же перекосом, что и при генерации данных,
+     * пользователи в остальных ролях — равномерно.
+     */
+    enum Call {
+        ITEM("item") {
+            @Override
+            HttpRequest request(LoadDriver driver, Random random) {
+                return driver.get("/items/" + driver.items.sample(random), driver.userId(random)).build();
+            }
+        },
+        ITEMS("items") {
+            @Override
+            HttpRequest request(LoadDriver driver, Random random) {
+                return driver.get("/items?from=0&size=20", driver.owners.sample(random)).build();
+            }
+        },
+        SEARCH("search") {
+            @Override
+            HttpRequest request(LoadDriver driver, Random random) {
+                String text = URLEncoder.encode(DatasetGenerator.word(random), StandardCharsets.UTF_8);
+                return driver.get("/items/search?from=0&size=20&text=" + text, driver.userId(random)).build();
+            }
+        },
+        BOOKINGS("bookings") {
+            @Override
+            HttpRequest request(LoadDriver driver, Random random) {
+                return driver.get("/bookings?from=0&size=20&state=" + state(random), driver.userId(random)).build();
+            }
+        },
+        BOOKINGS_OWNER("bookings-owner") {
+            @Override
+            HttpRequest request(LoadDriver driver, Random random) {
+                return driver.get("/bookings/owner?from=0&size=20&state=" + state(random),
+                        driver.owners.sample(random)).build();
+            }
+        },
+        BOOK("book") {
+            @Override
+            HttpRequest request(LoadDriver driver, Random random) {
+                LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)
+                        .plusDays(1 + random.nextInt(365));
+                String body = String.format("{\"itemId\":%d,\"start\":\"%s\",\"end\":\"%s\"}",
+                        driver.items.sample(random), start, start.plusHours(1 + random.nextInt(24 * 7)));
+                return HttpRequest.newBuilder(URI.create(driver.baseUri + "/bookings"))
+                        .header("X-Sharer-User-Id", String.valueOf(driver.userId(random)))
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofSeconds(30))
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+        },
+        REQUESTS("requests") {
+            @Override
+            HttpRequest request(LoadDriver driver, Random random) {
+                return driver.get("/requests", driver.userId(random)).build();
+            }
+        },
+        REQUESTS_ALL("requests-all") {
+            @Override
+            HttpRequest request(LoadDriver driver, Random random) {
+                return driver.get("/requests/all?from=0&size=20", driver.userId(random)).build();
+            }
+        },
+        USER("user") {
+            @Override
+            HttpRequest request(LoadDriver driver, Random random) {
+                return driver.get("/users/" + driver.userId(random), driver.userId(random)).build();
+            }
+        };
+
+        private static final String[] STATES = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"};
+
+        private final String key;
+
+        Call(String key) {
+            this.key = key;
+        }
+
+        abstract HttpRequest request(LoadDriver driver, Random random);
+
+        static Call of(String key) {
+            for (Call call : values()) {
+                if (call.key.equals(key)) {
+                    return call;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестный вызов в load.mix: " + key);
+        }
+
+        private static String state(Random random) {
+            return STATES[random.nextInt(STATES.length)];
+        }
+    }
+}
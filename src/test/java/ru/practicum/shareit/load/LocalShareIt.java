@@ -0,0 +1,59 @@
+package ru.practicum.shareit.load;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+
+import javax.sql.DataSource;
+
+/**
+ * Запуск приложения для бенчмарков и нагрузочных прогонов. Без явного spring.profiles.active работает
+ * на H2 (профиль test), с -Dspring.profiles.active=default — на локальном PostgreSQL из application.properties.
+ * Данные генерируются до ApplicationReadyEvent, поэтому индексы в памяти строятся уже по ним.
+ */
+public final class LocalShareIt {
+
+    // вывод SQL и трассировка транзакций в консоль искажают замеры, бюджет запросов только предупреждает
+    private static final String[] PROPERTIES = {
+            "spring.jpa.properties.hibernate.show_sql=false",
+            "logging.level.root=WARN",
+            "logging.level.ru.practicum.shareit.load=INFO",
+            "logging.level.org.springframework.orm.jpa=WARN",
+            "logging.level.org.springframework.transaction=WARN",
+            "logging.level.org.springframework.transaction.interceptor=WARN",
+            "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "shareit.sql.budget.fail=false",
+            "server.port=0"
+    };
+
+    private LocalShareIt() {
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType,
+                                                       DatasetGenerator generator) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ShareItApp.class)
+                .web(webApplicationType)
+                .properties(PROPERTIES)
+                .listeners(new GenerateOnStart(generator));
+        if (System.getProperty("spring.profiles.active") == null) {
+            builder.profiles("test");
+        }
+        return builder.run();
+    }
+
+    private static final class GenerateOnStart implements ApplicationListener<ApplicationStartedEvent> {
+        private final DatasetGenerator generator;
+
+        private GenerateOnStart(DatasetGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void onApplicationEvent(ApplicationStartedEvent event) {
+            generator.generate(event.getApplicationContext().getBean(DataSource.class));
+        }
+    }
+}
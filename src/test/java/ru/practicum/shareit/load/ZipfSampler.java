@@ -0,0 +1,32 @@
+package ru.practicum.shareit.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Ранги 1..n с вероятностью, пропорциональной 1 / k^skew: при skew около 1 на первые проценты рангов
+ * приходится большая часть выборок, остальные образуют длинный хвост. Так распределены популярность
+ * вещей и число вещей у владельцев. Выборка — двоичный поиск по накопленным весам.
+ */
+public final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    public ZipfSampler(int n, double skew) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Нужен хотя бы один ранг");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1 / Math.pow(k, skew);
+            cumulative[k - 1] = sum;
+        }
+    }
+
+    public int sample(Random random) {
+        double value = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, value);
+        return (index < 0 ? -index - 1 : index) + 1;
+    }
+}
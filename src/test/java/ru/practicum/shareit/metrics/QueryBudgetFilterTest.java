@@ -0,0 +1,111 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryBudgetFilterTest {
+
+    private final QueryCountInspector inspector = new QueryCountInspector();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    public void setUp() {
+        request = new MockHttpServletRequest("GET", "/items");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/items");
+    }
+
+    @Test
+    public void repeatedStatementFailsRequestTest() {
+        QueryBudgetFilter filter = new QueryBudgetFilter(inspector, registry, 20, 5, true, Set.of());
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(),
+                        statements(6, i -> "select * from users where id=?")));
+
+        assertTrue(e.getMessage().contains("N+1"));
+        assertTrue(e.getMessage().contains("select * from users where id=?"));
+        assertEquals(1, registry.get(QueryBudgetFilter.SUMMARY).tag("uri", "/items").summary().count());
+        assertEquals(6, registry.get(QueryBudgetFilter.SUMMARY).tag("uri", "/items").summary().totalAmount());
+    }
+
+    @Test
+    public void tooManyStatementsFailsRequestTest() {
+        QueryBudgetFilter filter = new QueryBudgetFilter(inspector, registry, 20, 5, true, Set.of());
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(),
+                        statements(21, i -> "select * from items where id=" + i)));
+
+        assertTrue(e.getMessage().contains("21 SQL-запросов при бюджете 20"));
+    }
+
+    @Test
+    public void withinBudgetTest() {
+        QueryBudgetFilter filter = new QueryBudgetFilter(inspector, registry, 20, 5, true, Set.of());
+
+        assertDoesNotThrow(() -> filter.doFilter(request, new MockHttpServletResponse(),
+                statements(5, i -> "select * from users where id=?")));
+        // счетчики сбрасываются на каждом запросе
+        assertDoesNotThrow(() -> filter.doFilter(new MockHttpServletRequest("GET", "/items"),
+                new MockHttpServletResponse(), statements(5, i -> "select * from users where id=?")));
+    }
+
+    @Test
+    public void violationOnlyLoggedWithoutFailTest() {
+        QueryBudgetFilter filter = new QueryBudgetFilter(inspector, registry, 20, 5, false, Set.of());
+
+        assertDoesNotThrow(() -> filter.doFilter(request, new MockHttpServletResponse(),
+                statements(30, i -> "select * from users where id=?")));
+        assertEquals(1, registry.get(QueryBudgetFilter.VIOLATIONS)
+                .tags("uri", "/items", "reason", "statements").counter().count());
+    }
+
+    @Test
+    public void countersClearedAfterRequestTest() {
+        QueryBudgetFilter filter = new QueryBudgetFilter(inspector, registry, 20, 5, false, Set.of());
+        FilterChain failing = (req, res) -> {
+            inspector.inspect("select * from users where id=?");
+            throw new ServletException("Ошибка обработчика");
+        };
+
+        assertThrows(ServletException.class, () -> filter.doFilter(request, new MockHttpServletResponse(), failing));
+        assertEquals(0, inspector.getCount());
+
+        assertDoesNotThrow(() -> filter.doFilter(request, new MockHttpServletResponse(),
+                statements(3, i -> "select * from users where id=?")));
+        assertEquals(0, inspector.getCount());
+    }
+
+    @Test
+    public void excludedPathNotCheckedTest() {
+        QueryBudgetFilter filter = new QueryBudgetFilter(inspector, registry, 20, 5, true, Set.of("/items"));
+
+        assertDoesNotThrow(() -> filter.doFilter(request, new MockHttpServletResponse(),
+                statements(30, i -> "insert into items values (?)")));
+    }
+
+    private FilterChain statements(int count, IntFunction<String> sql) {
+        return (req, res) -> {
+            for (int i = 0; i < count; i++) {
+                inspector.inspect(sql.apply(i));
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Списки API на данных, где у каждой записи свои связанные сущности: ленивая загрузка связей по одной
+ * превысит бюджет QueryBudgetFilter, и в профиле test запрос завершится исключением.
+ */
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class QueryBudgetIntegrationTest {
+
+    private static final int ROWS = 8;
+
+    private final MockMvc mvc;
+
+    private final EntityManager em;
+
+    private User owner;
+
+    private User requestor;
+
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        owner = persist(new User(null, "owner", "owner@budget.com"));
+        requestor = persist(new User(null, "requestor", "requestor@budget.com"));
+        for (int i = 0; i < ROWS; i++) {
+            User author = persist(new User(null, "author" + i, "author" + i + "@budget.com"));
+            ItemRequest request = persist(new ItemRequest(null, "Нужна вещь " + i, requestor, now.minusDays(i)));
+            item = persist(new Item(null, "Вещь " + i, "Описание " + i, true, owner, request, 0L));
+            persist(new Booking(null, now.minusDays(3), now.minusDays(2), item, author, Status.APPROVED, 0L));
+            persist(new Booking(null, now.plusDays(2), now.plusDays(3), item, requestor, Status.WAITING, 0L));
+            persist(Comment.builder().text("Отзыв " + i).item(item).author(author).created(now).build());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/items", "/bookings/owner", "/bookings/owner?state=PAST", "/items/search?text=вещь"})
+    void ownerListingsWithinBudget(String uri) throws Exception {
+        mvc.perform(get(uri).header("X-Sharer-User-Id", owner.getId())).andExpect(status().isOk());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/requests", "/requests/all", "/bookings", "/bookings?state=FUTURE"})
+    void requestorListingsWithinBudget(String uri) throws Exception {
+        mvc.perform(get(uri).header("X-Sharer-User-Id", requestor.getId())).andExpect(status().isOk());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/items/%d", "/requests/%d"})
+    void singleItemWithinBudget(String uri) throws Exception {
+        long id = uri.startsWith("/items") ? item.getId() : item.getRequest().getId();
+        mvc.perform(get(String.format(uri, id)).header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk());
+    }
+
+    private <T> T persist(T entity) {
+        em.persist(entity);
+        return entity;
+    }
+}
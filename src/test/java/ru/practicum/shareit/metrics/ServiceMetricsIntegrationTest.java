@@ -0,0 +1,82 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.model.State;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.transaction.Transactional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ServiceMetricsIntegrationTest {
+
+    private final BookingService bookingService;
+
+    private final UserService userService;
+
+    private final MeterRegistry registry;
+
+    private final MockMvc mvc;
+
+    @Test
+    void bookingListingTimedWithStateAndSize() {
+        UserDto user = userService.createUser(new UserDto(null, "metrics", "metrics@user.com"));
+        long before = serviceCount("getAllBookingByUserId", "PAST", "0", "none");
+
+        bookingService.getAllBookingByUserId(user.getId(), State.PAST, 0, 10);
+
+        assertThat(serviceCount("getAllBookingByUserId", "PAST", "0", "none"), is(before + 1));
+    }
+
+    @Test
+    void failedCallTimedWithException() {
+        long before = serviceCount("getBookingById", "none", "none", "NotFoundException");
+
+        assertThrows(NotFoundException.class, () -> bookingService.getBookingById(999L, 999L));
+
+        assertThat(serviceCount("getBookingById", "none", "none", "NotFoundException"), is(before + 1));
+    }
+
+    @Test
+    void queriesCountedPerHttpRequest() throws Exception {
+        DistributionSummary summary = DistributionSummary.builder(QueryBudgetFilter.SUMMARY)
+                .tag("method", "GET")
+                .tag("uri", "/users")
+                .register(registry);
+        long count = summary.count();
+        double total = summary.totalAmount();
+
+        mvc.perform(get("/users")).andExpect(status().isOk());
+
+        assertThat(summary.count(), is(count + 1));
+        assertThat(summary.totalAmount(), greaterThanOrEqualTo(total + 1));
+    }
+
+    private long serviceCount(String method, String state, String size, String exception) {
+        Timer timer = registry.find(ServiceMetricsAspect.TIMER)
+                .tags("class", "BookingServiceImpl", "method", method, "state", state, "size", size,
+                        "exception", exception)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
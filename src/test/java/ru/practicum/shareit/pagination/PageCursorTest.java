@@ -0,0 +1,42 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.ValidateException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCursorTest {
+
+    @Test
+    public void encodeAndDecodeTest() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2023, 1, 2, 3, 4, 5, 6000), 42L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    public void decodeBrokenCursorTest() {
+        assertThrows(ValidateException.class, () -> PageCursor.decode("%%%"));
+        assertThrows(ValidateException.class, () -> PageCursor.decode("bm90aGluZw"));
+    }
+
+    @Test
+    public void withNextCursorTest() {
+        LocalDateTime time = LocalDateTime.now();
+        Function<Long, PageCursor> cursorOf = id -> new PageCursor(time, id);
+
+        ResponseEntity<List<Long>> fullPage = PageCursor.withNextCursor(List.of(1L, 2L), 2, cursorOf);
+        ResponseEntity<List<Long>> lastPage = PageCursor.withNextCursor(List.of(1L), 2, cursorOf);
+
+        assertEquals(new PageCursor(time, 2L).encode(),
+                fullPage.getHeaders().getFirst(PageCursor.NEXT_CURSOR_HEADER));
+        assertNull(lastPage.getHeaders().getFirst(PageCursor.NEXT_CURSOR_HEADER));
+    }
+}
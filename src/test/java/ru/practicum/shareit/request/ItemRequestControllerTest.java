@@ -8,8 +8,10 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
 
@@ -25,6 +27,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemRequestController.class)
@@ -113,5 +116,26 @@ public class ItemRequestControllerTest {
                 .andExpect(jsonPath("$.id", is(itemRequestWithItemsDto.getId()), Long.class))
                 .andExpect(jsonPath("$.description", is(itemRequestWithItemsDto.getDescription()), String.class));
     }
-}
 
+    @Test
+    public void getSuggestionsTest() throws Exception {
+        when(itemRequestService.getSuggestions(1L, 1L)).thenReturn(List.of(new RequestMatchDto(1L, 5L, 1.0)));
+
+        mvc.perform(get("/requests/1/suggestions")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].itemId", is(5L), Long.class))
+                .andExpect(jsonPath("$[0].score", is(1.0), Double.class));
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        when(itemRequestService.subscribe(1L)).thenReturn(new SseEmitter());
+
+        mvc.perform(get("/requests/stream")
+                        .header("X-Sharer-User-Id", "1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.request;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
@@ -61,5 +62,22 @@ public class ItemRequestMapperTest {
         assertEquals(requestWithItemsDto.getId(), itemRequestWithItemsDto.getId());
         assertEquals(requestWithItemsDto.getItems(), itemRequestWithItemsDto.getItems());
     }
-}
 
+    @Test
+    public void toItemRequestWithListItemsDtosGroupsByRequest() {
+        ItemRequest secondRequest = new ItemRequest(2L, "Fridge", user, LocalDateTime.now());
+        List<Item> items = List.of(
+                new Item(1L, "Sofa", "Description", true, user, itemRequest, 0L),
+                new Item(2L, "Fridge", "New", true, user, null, 0L),
+                new Item(3L, "Sofa bed", "Old", true, user, itemRequest, 0L));
+
+        List<ItemRequestWithItemsDto> result =
+                ItemRequestMapper.toItemRequestWithListItemsDtos(List.of(secondRequest, itemRequest), items);
+
+        assertEquals(2, result.size());
+        assertEquals(2L, result.get(0).getId());
+        assertEquals(List.of(), result.get(0).getItems());
+        assertEquals(List.of(1L, 3L), List.of(result.get(1).getItems().get(0).getId(),
+                result.get(1).getItems().get(1).getId()));
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -15,6 +16,9 @@ import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.request.service.RequestFeed;
+import ru.practicum.shareit.request.service.RequestMatcher;
+import ru.practicum.shareit.request.service.RequestStream;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -41,6 +45,18 @@ public class ItemRequestServiceImplTest {
     @Mock
     private ItemRepository itemRepository;
 
+    @Mock
+    private RequestMatcher requestMatcher;
+
+    @Mock
+    private RequestFeed requestFeed;
+
+    @Mock
+    private RequestStream requestStream;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ItemRequestServiceImpl itemRequestService;
 
@@ -54,7 +70,7 @@ public class ItemRequestServiceImplTest {
         userOne = new User(1L, "userOne", "userOne@user.com");
         userTwoOwner = new User(2L, "userTwoOwner", "userTwo@user.com");
         itemRequestOne = new ItemRequest(1L, "itemRequestDescription", userOne, LocalDateTime.now());
-        itemOne = new Item(1L, "itemNameOne", "itemDescriptionOne", true, userTwoOwner, itemRequestOne);
+        itemOne = new Item(1L, "itemNameOne", "itemDescriptionOne", true, userTwoOwner, itemRequestOne, 0L);
     }
 
     @Test
@@ -84,7 +100,7 @@ public class ItemRequestServiceImplTest {
     @Test
     public void getAllRequestByUserTest() {
         long userId = userOne.getId();
-        when(userRepository.findById(userId)).thenReturn(Optional.of(userOne));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(itemRequestRepository.findAllByRequestorId(anyLong(), any())).thenReturn(List.of(itemRequestOne));
         when(itemRepository.findAllByRequestIdIn(any())).thenReturn(new ArrayList<>(List.of(itemOne)));
 
@@ -97,7 +113,7 @@ public class ItemRequestServiceImplTest {
     @Test
     public void getAllRequestByUserTest_WhenUserNotFound() {
         long userId = 999L;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
         NotFoundException e = assertThrows(NotFoundException.class,
                 () -> itemRequestService.getAllRequestsByUser(userId));
 
@@ -107,7 +123,7 @@ public class ItemRequestServiceImplTest {
     @Test
     public void getAllRequestsTest() {
         long userId = userTwoOwner.getId();
-        when(userRepository.findById(userId)).thenReturn(Optional.of(userTwoOwner));
+        when(userRepository.existsById(userId)).thenReturn(true);
         when(itemRequestRepository.findAllByRequestorIdNot(anyLong(), any())).thenReturn(List.of(itemRequestOne));
         when(itemRepository.findAllByRequestIdIn(any())).thenReturn(new ArrayList<>(List.of(itemOne)));
 
@@ -116,10 +132,23 @@ public class ItemRequestServiceImplTest {
         assertEquals(1, allRequests.size());
     }
 
+    @Test
+    public void getAllRequests_FromFeedTest() {
+        long userId = userTwoOwner.getId();
+        ItemRequestWithItemsDto dto = ItemRequestMapper.toItemRequestWithListItemsDto(itemRequestOne, List.of());
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(requestFeed.findPage(userId, null, 10, 10)).thenReturn(Optional.of(List.of(dto)));
+
+        List<ItemRequestWithItemsDto> allRequests = itemRequestService.getAllRequests(userId, 1, 10);
+
+        assertEquals(List.of(dto), allRequests);
+        verify(itemRequestRepository, never()).findAllByRequestorIdNot(anyLong(), any());
+    }
+
     @Test
     public void getAllRequests_WhenUserNotFoundTest() {
         long userNotCorrectId = 999;
-        when(userRepository.findById(userNotCorrectId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userNotCorrectId)).thenReturn(false);
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> itemRequestService.getAllRequests(userNotCorrectId, 0, 10));
@@ -128,7 +157,7 @@ public class ItemRequestServiceImplTest {
 
     @Test
     public void getRequestByIdTest() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(userOne));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.ofNullable(itemRequestOne));
         when(itemRepository.findAllByRequestId(anyLong())).thenReturn(List.of(itemOne));
 
@@ -139,7 +168,7 @@ public class ItemRequestServiceImplTest {
         assertEquals(itemRequestWithItemsDto.getDescription(), itemRequestOne.getDescription());
         assertEquals(itemRequestWithItemsDto.getRequestor(), itemRequestOne.getRequestor());
 
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userRepository, times(1)).existsById(anyLong());
         verify(itemRequestRepository, times(1)).findById(anyLong());
         verify(itemRepository, times(1)).findAllByRequestId(anyLong());
     }
@@ -147,7 +176,7 @@ public class ItemRequestServiceImplTest {
     @Test
     public void getRequestByIdWhenUserNotFoundTest() {
         long userId = 999L;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         NotFoundException e = assertThrows(NotFoundException.class,
                 () -> itemRequestService.getRequestById(userId, itemRequestOne.getId()));
@@ -158,7 +187,7 @@ public class ItemRequestServiceImplTest {
     @Test
     public void getRequestByIdWhenRequestNotFoundTest() {
         long itemRequestId = 999L;
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(userOne));
+        when(userRepository.existsById(anyLong())).thenReturn(true);
         when(itemRequestRepository.findById(itemRequestId)).thenReturn(Optional.empty());
 
         NotFoundException e = assertThrows(NotFoundException.class,
@@ -166,4 +195,16 @@ public class ItemRequestServiceImplTest {
 
         assertEquals("Отсутствует запрос c таким id " + itemRequestId, e.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getSuggestions_WhenRequestNotFoundTest() {
+        when(userRepository.existsById(userOne.getId())).thenReturn(true);
+        when(itemRequestRepository.existsById(100L)).thenReturn(false);
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> itemRequestService.getSuggestions(userOne.getId(), 100L));
+
+        assertEquals("Отсутствует запрос c таким id 100", exception.getMessage());
+        verifyNoInteractions(requestMatcher);
+    }
+}
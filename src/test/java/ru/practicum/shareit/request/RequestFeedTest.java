@@ -0,0 +1,128 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSavedEvent;
+import ru.practicum.shareit.pagination.PageCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestWithItemsDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.service.RequestFeed;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserDeletedEvent;
+import ru.practicum.shareit.user.service.UserUpdatedEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RequestFeedTest {
+
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private RequestFeed requestFeed;
+
+    private final LocalDateTime now = LocalDateTime.of(2022, 9, 1, 12, 0);
+    private final User masha = new User(1L, "Masha", "masha@user.com");
+    private final User petya = new User(2L, "Petya", "petya@user.com");
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(requestFeed, "capacity", 3);
+        ItemRequest table = new ItemRequest(2L, "Стол", masha, now.minusHours(1));
+        ItemRequest sofa = new ItemRequest(1L, "Диван", petya, now.minusHours(2));
+        when(itemRequestRepository.findFeed(any())).thenReturn(List.of(table, sofa));
+        when(itemRepository.findAllByRequestIdIn(any())).thenReturn(List.of(
+                new Item(5L, "Стол", "Дубовый", true, petya, table, 0L)));
+        requestFeed.build();
+    }
+
+    @Test
+    public void findPageSkipsOwnRequestsTest() {
+        requestFeed.onItemRequestCreated(created(3L, "Стул", masha, now));
+
+        assertEquals(List.of(3L, 2L), ids(requestFeed.findPage(petya.getId(), null, 0, 10)));
+        assertEquals(List.of(1L), ids(requestFeed.findPage(masha.getId(), null, 0, 10)));
+        assertEquals(List.of(5L), requestFeed.findPage(petya.getId(), null, 1, 1).orElseThrow()
+                .get(0).getItems().stream().map(ItemDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findPageAfterCursorTest() {
+        PageCursor cursor = new PageCursor(now.minusHours(1), 2L);
+
+        assertEquals(List.of(1L), ids(requestFeed.findPage(3L, cursor, 0, 10)));
+    }
+
+    @Test
+    public void onItemSavedAddsItemToRequestTest() {
+        requestFeed.onItemSaved(new ItemSavedEvent(new ItemDto(6L, "Табурет", "Для стола", true, 2L), 3L, true));
+        requestFeed.onItemSaved(new ItemSavedEvent(new ItemDto(5L, "Стол", "Сосновый", true, 2L), 2L, false));
+
+        List<ItemDto> items = requestFeed.findPage(petya.getId(), null, 0, 1).orElseThrow().get(0).getItems();
+        assertEquals(List.of(5L, 6L), items.stream().map(ItemDto::getId).collect(Collectors.toList()));
+        assertEquals("Сосновый", items.get(0).getDescription());
+    }
+
+    @Test
+    public void onUserUpdatedReplacesRequestorTest() {
+        requestFeed.onUserUpdated(new UserUpdatedEvent(new UserDto(1L, "Maria", "masha@user.com")));
+
+        assertEquals("Maria", requestFeed.findPage(petya.getId(), null, 0, 1).orElseThrow()
+                .get(0).getRequestor().getName());
+    }
+
+    @Test
+    public void onUserDeletedRemovesRequestsAndItemsTest() {
+        requestFeed.onUserDeleted(new UserDeletedEvent(petya.getId(), List.of(5L), List.of(1L)));
+
+        List<ItemRequestWithItemsDto> page = requestFeed.findPage(3L, null, 0, 10).orElseThrow();
+        assertEquals(List.of(2L), ids(Optional.of(page)));
+        assertEquals(List.of(), page.get(0).getItems());
+        verify(itemRequestRepository, times(1)).findFeed(any());
+    }
+
+    @Test
+    public void overflowFallsBackToDatabaseTest() {
+        requestFeed.onItemRequestCreated(created(3L, "Стул", masha, now));
+        requestFeed.onItemRequestCreated(created(4L, "Лампа", masha, now.plusHours(1)));
+
+        // самый старый запрос вытеснен, после конца ленты страница читается из базы
+        assertEquals(List.of(4L, 3L, 2L), ids(requestFeed.findPage(petya.getId(), null, 0, 3)));
+        assertEquals(Optional.empty(), requestFeed.findPage(petya.getId(), null, 0, 4));
+        assertEquals(Optional.empty(), requestFeed.findPage(masha.getId(), null, 0, 1));
+    }
+
+    private ItemRequestCreatedEvent created(long id, String description, User requestor, LocalDateTime created) {
+        return new ItemRequestCreatedEvent(new ItemRequestDto(id, description, created),
+                new UserDto(requestor.getId(), requestor.getName(), requestor.getEmail()));
+    }
+
+    private List<Long> ids(Optional<List<ItemRequestWithItemsDto>> page) {
+        return page.orElseThrow().stream().map(ItemRequestWithItemsDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,180 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSavedEvent;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.service.RequestMatcher;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserDeletedEvent;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RequestMatcherTest {
+
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private RequestMatcher requestMatcher;
+
+    @BeforeEach
+    public void setUp() {
+        when(itemRequestRepository.findAllOpen()).thenReturn(List.of());
+        requestMatcher.build();
+        requestMatcher.onItemRequestCreated(new ItemRequestCreatedEvent(
+                new ItemRequestDto(1L, "Нужна дрель для ремонта", null), requestor(10L)));
+        requestMatcher.onItemRequestCreated(new ItemRequestCreatedEvent(
+                new ItemRequestDto(2L, "Ищу аккумуляторную отвертку", null), requestor(20L)));
+    }
+
+    @Test
+    public void itemMatchesRequestsWithCommonWordsTest() {
+        requestMatcher.onItemSaved(saved(new ItemDto(5L, "Дрель", "Ударная, с набором сверл", true, null), 30L));
+
+        assertEquals(List.of(new RequestMatchDto(1L, 5L, 0.5)), requestMatcher.findRequestsForItem(5L));
+        assertEquals(List.of(new RequestMatchDto(1L, 5L, 0.5)), requestMatcher.findItemsForRequest(1L));
+        assertEquals(List.of(), requestMatcher.findItemsForRequest(2L));
+    }
+
+    @Test
+    public void suggestionsSortedByScoreTest() {
+        requestMatcher.onItemSaved(saved(new ItemDto(5L, "Дрель", "Простая", true, null), 30L));
+        requestMatcher.onItemSaved(saved(new ItemDto(6L, "Дрели для ремонта", "Две штуки", true, null), 30L));
+
+        assertEquals(List.of(6L, 5L), requestMatcher.findItemsForRequest(1L).stream()
+                .map(RequestMatchDto::getItemId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void ownRequestsAndUnavailableItemsNotMatchedTest() {
+        requestMatcher.onItemSaved(saved(new ItemDto(5L, "Дрель", "Простая", true, null), 10L));
+        requestMatcher.onItemSaved(saved(new ItemDto(6L, "Отвертка", "Аккумуляторная", false, null), 30L));
+
+        assertEquals(List.of(), requestMatcher.findRequestsForItem(5L));
+        assertEquals(List.of(), requestMatcher.findRequestsForItem(6L));
+    }
+
+    @Test
+    public void updatedItemRematchedTest() {
+        requestMatcher.onItemSaved(saved(new ItemDto(5L, "Дрель", "Простая", true, null), 30L));
+        requestMatcher.onItemSaved(new ItemSavedEvent(
+                new ItemDto(5L, "Отвертка", "Аккумуляторная", true, null), 30L, false));
+
+        assertEquals(List.of(), requestMatcher.findItemsForRequest(1L));
+        assertEquals(List.of(new RequestMatchDto(2L, 5L, 1.0)), requestMatcher.findRequestsForItem(5L));
+    }
+
+    @Test
+    public void answeredRequestClosedTest() {
+        requestMatcher.onItemSaved(saved(new ItemDto(5L, "Дрель", "Простая", true, null), 30L));
+        requestMatcher.onItemSaved(saved(new ItemDto(6L, "Дрель", "Для ремонта", true, 1L), 40L));
+        requestMatcher.onItemSaved(saved(new ItemDto(7L, "Дрель", "Мощная", true, null), 50L));
+
+        assertEquals(List.of(), requestMatcher.findItemsForRequest(1L));
+        assertEquals(List.of(), requestMatcher.findRequestsForItem(5L));
+        assertEquals(List.of(), requestMatcher.findRequestsForItem(7L));
+    }
+
+    @Test
+    public void onUserDeletedRemovesOnlyUserRequestsAndItemsTest() {
+        requestMatcher.onItemRequestCreated(new ItemRequestCreatedEvent(
+                new ItemRequestDto(3L, "Нужна дрель", null), requestor(40L)));
+        requestMatcher.onItemSaved(saved(new ItemDto(5L, "Дрель", "Простая", true, null), 30L));
+        requestMatcher.onItemSaved(saved(new ItemDto(6L, "Отвертка", "Аккумуляторная", true, null), 10L));
+        requestMatcher.onItemSaved(saved(new ItemDto(7L, "Дрель", "Мощная", true, null), 10L));
+
+        // пользователь 10: его запрос 1 и его вещи 6 и 7
+        requestMatcher.onUserDeleted(new UserDeletedEvent(10L, List.of(6L, 7L), List.of(1L)));
+
+        assertEquals(List.of(), requestMatcher.findItemsForRequest(1L));
+        assertEquals(List.of(), requestMatcher.findItemsForRequest(2L));
+        assertEquals(List.of(new RequestMatchDto(3L, 5L, 1.0)), requestMatcher.findItemsForRequest(3L));
+        assertEquals(List.of(new RequestMatchDto(3L, 5L, 1.0)), requestMatcher.findRequestsForItem(5L));
+        assertEquals(List.of(), requestMatcher.findRequestsForItem(7L));
+        verify(itemRequestRepository, times(1)).findAllOpen();
+    }
+
+    @Test
+    public void existingItemsMatchedOnBuildTest() {
+        List<ItemRequestRepository.OpenRequestView> requests = List.of(openRequest(1L, "Нужна дрель", 10L));
+        List<ItemRepository.AvailableItemView> items = List.of(
+                availableItem(6L, "Дрель", "Своя", 10L),
+                availableItem(5L, "Дрель", "Простая", 30L));
+        when(itemRequestRepository.findAllOpen()).thenReturn(requests);
+        when(itemRepository.findAvailableContaining(eq("дрел"), any())).thenReturn(items);
+
+        requestMatcher.build();
+
+        assertEquals(List.of(new RequestMatchDto(1L, 5L, 1.0)), requestMatcher.findItemsForRequest(1L));
+        assertEquals(List.of(), requestMatcher.findItemsForRequest(2L));
+        assertEquals(List.of(), requestMatcher.findRequestsForItem(6L));
+    }
+
+    @Test
+    public void newRequestMatchedWithExistingItemsTest() {
+        // база ищет по подстроке, поэтому вместе со столом находит и столешницу
+        List<ItemRepository.AvailableItemView> items = List.of(
+                availableItem(8L, "Столешница", "Сосновая", 30L),
+                availableItem(7L, "Стол", "Дубовый", 30L));
+        when(itemRepository.findAvailableContaining(anyString(), any()))
+                .thenAnswer(invocation -> "стол".equals(invocation.getArgument(0)) ? items : List.of());
+
+        requestMatcher.onItemRequestCreated(new ItemRequestCreatedEvent(
+                new ItemRequestDto(3L, "Ищу дубовый стол", null), requestor(40L)));
+
+        assertEquals(List.of(new RequestMatchDto(3L, 7L, 1.0)), requestMatcher.findItemsForRequest(3L));
+        assertEquals(List.of(new RequestMatchDto(3L, 7L, 1.0)), requestMatcher.findRequestsForItem(7L));
+        assertEquals(List.of(), requestMatcher.findRequestsForItem(8L));
+        verify(itemRepository).findAvailableContaining(eq("дубов"), any());
+    }
+
+    private UserDto requestor(long id) {
+        return new UserDto(id, "user" + id, "user" + id + "@user.com");
+    }
+
+    private ItemSavedEvent saved(ItemDto itemDto, long ownerId) {
+        return new ItemSavedEvent(itemDto, ownerId, true);
+    }
+
+    private ItemRequestRepository.OpenRequestView openRequest(long id, String description, long requestorId) {
+        ItemRequestRepository.OpenRequestView view = mock(ItemRequestRepository.OpenRequestView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getDescription()).thenReturn(description);
+        when(view.getRequestorId()).thenReturn(requestorId);
+        return view;
+    }
+
+    private ItemRepository.AvailableItemView availableItem(long id, String name, String description, long ownerId) {
+        ItemRepository.AvailableItemView view = mock(ItemRepository.AvailableItemView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getName()).thenReturn(name);
+        when(view.getDescription()).thenReturn(description);
+        when(view.getOwnerId()).thenReturn(ownerId);
+        return view;
+    }
+}
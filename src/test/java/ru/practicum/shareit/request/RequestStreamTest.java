@@ -0,0 +1,167 @@
+package ru.practicum.shareit.request;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemSavedEvent;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestCreatedEvent;
+import ru.practicum.shareit.request.service.RequestStream;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestStreamTest {
+
+    private RequestStream requestStream;
+
+    @BeforeEach
+    public void setUp() {
+        requestStream = new RequestStream(new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(requestStream, "bufferSize", 1);
+        ReflectionTestUtils.setField(requestStream, "inboxSize", 100);
+        ReflectionTestUtils.setField(requestStream, "senderCount", 2);
+        ReflectionTestUtils.setField(requestStream, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(requestStream, "heartbeat", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(requestStream, "writeTimeout", Duration.ofMillis(200));
+        requestStream.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        requestStream.stop();
+    }
+
+    @Test
+    public void eventsAreNotSentToAuthorTest() throws Exception {
+        RecordingEmitter masha = subscribe(1L, new CountDownLatch(0));
+        RecordingEmitter petya = subscribe(2L, new CountDownLatch(0));
+
+        requestStream.onItemRequestCreated(requestCreated(1L, 1L));
+        String request = petya.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertTrue(request.contains("event:request"));
+        assertTrue(request.contains("\"description\":\"Нужна дрель\""));
+
+        requestStream.onItemSaved(new ItemSavedEvent(new ItemDto(6L, "Стол", "Дубовый", true, null), 2L, true));
+        requestStream.onItemSaved(new ItemSavedEvent(new ItemDto(5L, "Дрель", "Ударная", true, 1L), 2L, false));
+        requestStream.onItemSaved(new ItemSavedEvent(new ItemDto(5L, "Дрель", "Ударная", true, 1L), 2L, true));
+        String item = masha.events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(item);
+        assertTrue(item.contains("event:item"));
+        assertTrue(item.contains("\"id\":5"));
+
+        assertNull(masha.events.poll(100, TimeUnit.MILLISECONDS));
+        assertNull(petya.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void slowSubscriberIsDisconnectedTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = subscribe(1L, release);
+        RecordingEmitter fast = subscribe(3L, new CountDownLatch(0));
+
+        // очередь подписчика на одно событие: следующее публикуется, только когда быстрый получил предыдущее,
+        // иначе диспетчер мог бы переполнить и его очередь. Порядок обхода подписчиков не определен, поэтому
+        // медленному событие точно предложено, только когда быстрый получил следующее: третье переполняет
+        // его очередь, четвертое это подтверждает
+        for (long id = 1; id <= 4; id++) {
+            requestStream.onItemRequestCreated(requestCreated(id, 2L));
+            assertNotNull(fast.events.poll(5, TimeUnit.SECONDS));
+        }
+        release.countDown();
+
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(slow.events.size() <= 1);
+        assertTrue(fast.completed.getCount() > 0);
+    }
+
+    /**
+     * Зависших соединений больше, чем отправителей (senderCount = 2), а быстрый подписчик все равно получает события.
+     */
+    @Test
+    public void stalledSubscribersDoNotBlockOthersTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<RecordingEmitter> stalled = new ArrayList<>();
+        for (long userId = 1; userId <= 3; userId++) {
+            stalled.add(subscribe(userId, release));
+        }
+        RecordingEmitter fast = subscribe(10L, new CountDownLatch(0));
+
+        try {
+            for (long id = 1; id <= 3; id++) {
+                requestStream.onItemRequestCreated(requestCreated(id, 20L));
+                assertNotNull(fast.events.poll(5, TimeUnit.SECONDS));
+            }
+            // запись в зависшие соединения так и не завершилась, но подписчики уже отключены от событий
+            for (RecordingEmitter emitter : stalled) {
+                assertEquals(0, emitter.events.size());
+            }
+        } finally {
+            release.countDown();
+        }
+
+        for (RecordingEmitter emitter : stalled) {
+            assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+            assertTrue(emitter.events.size() <= 1);
+        }
+        assertTrue(fast.completed.getCount() > 0);
+    }
+
+    private RecordingEmitter subscribe(long userId, CountDownLatch release) {
+        RecordingEmitter emitter = new RecordingEmitter(release);
+        requestStream.register(userId, emitter);
+        return emitter;
+    }
+
+    private static ItemRequestCreatedEvent requestCreated(long requestId, long requestorId) {
+        return new ItemRequestCreatedEvent(new ItemRequestDto(requestId, "Нужна дрель", LocalDateTime.now()),
+                new UserDto(requestorId, "user" + requestorId, "user" + requestorId + "@user.com"));
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            events.add(builder.build().stream()
+                    .map(data -> data.getData().toString())
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+    }
+}
@@ -3,14 +3,19 @@ package ru.practicum.shareit.user;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserDeletedEvent;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
 import java.util.Collections;
@@ -30,6 +35,15 @@ public class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserServiceImpl userServiceImpl;
 
@@ -140,7 +154,15 @@ public class UserServiceImplTest {
 
     @Test
     public void deleteUserTest() {
+        when(itemRepository.findIdsDeletedWithUser(userOne.getId())).thenReturn(List.of(3L, 4L));
+        when(itemRequestRepository.findIdsByRequestorId(userOne.getId())).thenReturn(List.of(5L));
+
         userServiceImpl.deleteUser(userOne.getId());
+
         verify(userRepository, times(1)).deleteById(userOne.getId());
+        ArgumentCaptor<UserDeletedEvent> event = ArgumentCaptor.forClass(UserDeletedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(List.of(3L, 4L), event.getValue().getItemIds());
+        assertEquals(List.of(5L), event.getValue().getRequestIds());
     }
 }
@@ -4,7 +4,17 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.transaction.TestTransaction;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.transaction.Transactional;
@@ -20,6 +30,18 @@ public class UserServiceIntegrationTest {
 
     private final UserService service;
 
+    private final UserRepository userRepository;
+
+    private final CacheManager cacheManager;
+
+    private final ItemService itemService;
+
+    private final ItemRepository itemRepository;
+
+    private final ItemRequestService itemRequestService;
+
+    private final ItemRequestRepository itemRequestRepository;
+
     @Test
     void getAllUsers() {
         List<UserDto> userDtoList = List.of(
@@ -42,6 +64,51 @@ public class UserServiceIntegrationTest {
         }
     }
 
+    @Test
+    void existsByIdCachedUntilDelete() {
+        UserDto user = service.createUser(makeUserDto("petya", "petya@user.com"));
+        Cache cache = cacheManager.getCache(UserRepository.CACHE_NAME);
+
+        assertThat(userRepository.existsById(999L), is(false));
+        assertThat(cache.get(999L), nullValue());
+
+        assertThat(userRepository.existsById(user.getId()), is(true));
+        assertThat(cache.get(user.getId()), notNullValue());
+
+        service.deleteUser(user.getId());
+        // запись сбрасывается только после коммита удаления
+        assertThat(cache.get(user.getId()), notNullValue());
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertThat(cache.get(user.getId()), nullValue());
+    }
+
+    @Test
+    void cachedItemsAndRequestsEvictedOnDelete() {
+        UserDto requestor = service.createUser(makeUserDto("masha", "masha@cache.com"));
+        UserDto owner = service.createUser(makeUserDto("kolya", "kolya@cache.com"));
+        ItemRequestDto request = itemRequestService.addRequest(requestor.getId(),
+                new ItemRequestDto(null, "Нужна дрель", null));
+        ItemDto item = itemService.addItem(owner.getId(), ItemDto.builder().name("Дрель")
+                .description("Ударная").available(true).requestId(request.getId()).build());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        // результаты запроса и сами сущности попадают в кэш второго уровня
+        assertThat(itemRepository.findAllByRequestId(request.getId()), hasSize(1));
+        assertThat(itemRepository.findById(item.getId()).isPresent(), is(true));
+        assertThat(itemRequestRepository.findById(request.getId()).isPresent(), is(true));
+
+        // вещь владельца удаляется каскадом вместе с запросом, на который она отвечала
+        service.deleteUser(requestor.getId());
+
+        assertThat(itemRepository.findAllByRequestId(request.getId()), empty());
+        assertThat(itemRepository.findById(item.getId()).isPresent(), is(false));
+        assertThat(itemRequestRepository.findById(request.getId()).isPresent(), is(false));
+        service.deleteUser(owner.getId());
+    }
+
     private UserDto makeUserDto(String name, String email) {
         UserDto dto = new UserDto();
         dto.setName(name);